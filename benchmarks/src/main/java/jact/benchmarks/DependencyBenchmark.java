@@ -0,0 +1,102 @@
+package jact.benchmarks;
+
+import jact.depUtils.PackageToDependencyResolver;
+import jact.depUtils.ProjectDependencies;
+import jact.depUtils.ProjectDependency;
+import jact.utils.FileSystemUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reading the lockfile and resolving packages to dependencies.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DependencyBenchmark {
+    @Param({"50", "500"})
+    public int dependencies;
+
+    @Param({"10"})
+    public int childrenPerDependency;
+
+    @Param({"5"})
+    public int packagesPerDependency;
+
+    @Param({"1", "4"})
+    public int threads;
+
+    private File baseDir;
+    private SyntheticProject project;
+    private Map<String, ProjectDependency> dependenciesMap;
+    private PackageToDependencyResolver resolver;
+    private String[] packageNames;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        this.baseDir = Files.createTempDirectory("jact-bench").toFile();
+        this.project = new SyntheticProject(this.baseDir, this.dependencies, this.childrenPerDependency,
+                this.packagesPerDependency, 5);
+        this.project.generate();
+        this.dependenciesMap = readLockfile();
+        this.resolver = new PackageToDependencyResolver(this.dependenciesMap, this.project.getLocalRepoPath(), null);
+        this.packageNames = new String[this.dependencies * this.packagesPerDependency];
+        for (int i = 0; i < this.dependencies; i++) {
+            for (int p = 0; p < this.packagesPerDependency; p++) {
+                this.packageNames[i * this.packagesPerDependency + p] = SyntheticProject.packageName(i, p);
+            }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        FileSystemUtils.removeDirectory(this.baseDir);
+    }
+
+    private Map<String, ProjectDependency> readLockfile() {
+        return new ProjectDependencies(this.baseDir.getPath() + "/", true)
+                .getAllProjectDependencies(this.project.getLockfileDir());
+    }
+
+    @Benchmark
+    public Map<String, ProjectDependency> parseLockfile() {
+        return readLockfile();
+    }
+
+    /**
+     * Builds the class index from the jars, without the package cache.
+     */
+    @Benchmark
+    public PackageToDependencyResolver buildPackageIndex() {
+        return new PackageToDependencyResolver(this.dependenciesMap, this.project.getLocalRepoPath(), null,
+                this.threads);
+    }
+
+    @Benchmark
+    public void resolvePackages(Blackhole blackhole) {
+        for (String packageName : this.packageNames) {
+            blackhole.consume(this.resolver.packageToDependency(packageName));
+        }
+    }
+}
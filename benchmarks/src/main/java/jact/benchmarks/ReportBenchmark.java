@@ -0,0 +1,85 @@
+package jact.benchmarks;
+
+import jact.core.HtmlAugmenter;
+import jact.core.ReportContext;
+import jact.core.XmlAugmenter;
+import jact.utils.FileSystemUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Generating the XML and HTML reports from the JaCoCo reports.
+ * The HTML report moves and rewrites the JaCoCo pages, so every
+ * invocation works on a fresh copy of the report and dependencies.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class ReportBenchmark {
+    @Param({"50", "500"})
+    public int dependencies;
+
+    @Param({"5"})
+    public int packagesPerDependency;
+
+    @Param({"10"})
+    public int classesPerPackage;
+
+    @Param({"1", "4"})
+    public int threads;
+
+    private File baseDir;
+    private SyntheticProject project;
+    private String reportPath;
+    private ReportContext context;
+
+    @Setup(Level.Trial)
+    public void setupProject() throws IOException {
+        this.baseDir = Files.createTempDirectory("jact-bench").toFile();
+        this.project = new SyntheticProject(this.baseDir, this.dependencies, 10, this.packagesPerDependency,
+                this.classesPerPackage);
+        this.project.generate();
+        this.reportPath = this.baseDir.getPath() + "/report/";
+    }
+
+    @Setup(Level.Invocation)
+    public void setupReport() throws IOException {
+        FileSystemUtils.removeDirectory(new File(this.reportPath));
+        this.project.copyJacocoReport(this.reportPath);
+        this.context = this.project.createReportContext(this.reportPath, this.threads);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        FileSystemUtils.removeDirectory(this.baseDir);
+    }
+
+    @Benchmark
+    public void xmlReport() throws IOException {
+        new XmlAugmenter(this.context).generateXmlReport(false);
+    }
+
+    @Benchmark
+    public void htmlReport() {
+        new HtmlAugmenter(this.context).generateHtmlReport(false, false, null);
+    }
+}
@@ -0,0 +1,325 @@
+package jact.benchmarks;
+
+import jact.core.ReportContext;
+import jact.depUtils.PackageIndexCache;
+import jact.depUtils.PackageToDependencyResolver;
+import jact.depUtils.ProjectDependencies;
+import jact.depUtils.ProjectDependency;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Generates a synthetic project for the benchmarks: a lockfile
+ * (shaped like the complex test lockfile, with shared children),
+ * a local repository with the dependency jars and the JaCoCo XML
+ * and HTML reports of all dependency packages.
+ * Dependency `i` has the packages `dep.group{i}.pkg{j}`.
+ */
+public class SyntheticProject {
+    public static final String PROJECT_ID = "jact.bench:project:1.0";
+    public static final String PROJECT_PACKAGE = "jact.bench.project";
+
+    private static final String[] COUNTER_TYPES = {"INSTRUCTION", "BRANCH", "LINE", "COMPLEXITY", "METHOD", "CLASS"};
+
+    private final File baseDir;
+    private final int dependencyCount;
+    private final int childrenPerDependency;
+    private final int packagesPerDependency;
+    private final int classesPerPackage;
+
+    /**
+     * @param baseDir               directory the project is generated in
+     * @param dependencyCount       number of dependencies
+     * @param childrenPerDependency children of every dependency, shared with other dependencies
+     * @param packagesPerDependency packages in the jar of every dependency
+     * @param classesPerPackage     classes in every package
+     */
+    public SyntheticProject(File baseDir, int dependencyCount, int childrenPerDependency,
+                            int packagesPerDependency, int classesPerPackage) {
+        this.baseDir = baseDir;
+        this.dependencyCount = dependencyCount;
+        this.childrenPerDependency = childrenPerDependency;
+        this.packagesPerDependency = packagesPerDependency;
+        this.classesPerPackage = classesPerPackage;
+    }
+
+    public String getLockfileDir() {
+        return this.baseDir.getPath() + "/lockfile/";
+    }
+
+    public String getLocalRepoPath() {
+        return this.baseDir.getPath() + "/repository";
+    }
+
+    public String getPackageCacheDir() {
+        return this.baseDir.getPath() + "/package-cache";
+    }
+
+    /**
+     * Directory holding the JaCoCo reports as they are before
+     * JACT runs. Copy it before running an augmenter on it.
+     *
+     * @return String
+     */
+    public String getJacocoReportDir() {
+        return this.baseDir.getPath() + "/jacoco-report/";
+    }
+
+    /**
+     * Copies the JaCoCo reports (with all package directories)
+     * to the given report directory.
+     *
+     * @param reportPath
+     * @throws IOException
+     */
+    public void copyJacocoReport(String reportPath) throws IOException {
+        Path source = new File(getJacocoReportDir()).toPath();
+        Path dest = new File(reportPath).toPath();
+        try (Stream<Path> paths = Files.walk(source)) {
+            for (Path path : (Iterable<Path>) paths::iterator) {
+                Path target = dest.resolve(source.relativize(path).toString());
+                if (Files.isDirectory(path)) {
+                    Files.createDirectories(target);
+                } else {
+                    Files.copy(path, target);
+                }
+            }
+        }
+    }
+
+    public static String dependencyId(int index) {
+        return "dep.group" + index + ":artifact" + index + ":1.0";
+    }
+
+    public static String packageName(int dependency, int pkg) {
+        return "dep.group" + dependency + ".pkg" + pkg;
+    }
+
+    /**
+     * Writes all files of the project.
+     *
+     * @throws IOException
+     */
+    public void generate() throws IOException {
+        writeLockfile();
+        writeLocalRepository();
+        writeJacocoXmlReport();
+        writeJacocoHtmlReport();
+    }
+
+    /**
+     * Reads the dependencies and creates a report context for the
+     * given report directory. The package index is read from the
+     * package cache, so it is only built from the jars once.
+     *
+     * @param reportPath  report directory (ending with a separator)
+     * @param threadCount
+     * @return ReportContext
+     */
+    public ReportContext createReportContext(String reportPath, int threadCount) {
+        ProjectDependencies projectDependencies = new ProjectDependencies(reportPath, true);
+        Map<String, ProjectDependency> dependencies = projectDependencies.getAllProjectDependencies(getLockfileDir());
+        PackageToDependencyResolver resolver = new PackageToDependencyResolver(dependencies, getLocalRepoPath(),
+                new PackageIndexCache(getPackageCacheDir()));
+        Map<String, Set<String>> projectPackages =
+                Collections.singletonMap(PROJECT_PACKAGE, new HashSet<>(Collections.singleton("Main")));
+        return new ReportContext(reportPath, PROJECT_ID, projectPackages, dependencies,
+                projectDependencies.getIndirectUsageMap(), resolver, threadCount);
+    }
+
+    private void writeLockfile() throws IOException {
+        File lockfile = new File(getLockfileDir(), "lockfile.json");
+        lockfile.getParentFile().mkdirs();
+        try (Writer writer = newWriter(lockfile)) {
+            writer.write("{\n  \"artifactId\": \"project\",\n  \"groupId\": \"jact.bench\",\n  \"version\": \"1.0\",\n");
+            writer.write("  \"lockFileVersion\": 1,\n  \"dependencies\": [\n");
+            for (int i = 0; i < this.dependencyCount; i++) {
+                if (i > 0) {
+                    writer.write(",\n");
+                }
+                writeLockfileDependency(writer, i, null, "    ");
+            }
+            writer.write("\n  ]\n}\n");
+        }
+    }
+
+    private void writeLockfileDependency(Writer writer, int index, String parentId, String indent)
+            throws IOException {
+        writer.write(indent + "{\n");
+        writer.write(indent + "  \"groupId\": \"dep.group" + index + "\",\n");
+        writer.write(indent + "  \"artifactId\": \"artifact" + index + "\",\n");
+        writer.write(indent + "  \"version\": \"1.0\",\n");
+        writer.write(indent + "  \"checksumAlgorithm\": \"SHA-256\",\n");
+        writer.write(indent + "  \"checksum\": \"" + checksum(index) + "\",\n");
+        writer.write(indent + "  \"scope\": \"compile\",\n");
+        writer.write(indent + "  \"selectedVersion\": \"1.0\",\n");
+        writer.write(indent + "  \"id\": \"" + dependencyId(index) + "\",\n");
+        if (parentId != null) {
+            writer.write(indent + "  \"parent\": \"" + parentId + "\",\n");
+        }
+        writer.write(indent + "  \"children\": [");
+        // Only the dependencies of the project list their children
+        if (parentId == null) {
+            for (int c = 1; c <= this.childrenPerDependency && c < this.dependencyCount; c++) {
+                writer.write(c == 1 ? "\n" : ",\n");
+                writeLockfileDependency(writer, (index + c) % this.dependencyCount, dependencyId(index),
+                        indent + "    ");
+            }
+            if (this.childrenPerDependency > 0 && this.dependencyCount > 1) {
+                writer.write("\n" + indent + "  ");
+            }
+        }
+        writer.write("]\n" + indent + "}");
+    }
+
+    private static String checksum(int index) {
+        String hex = Integer.toHexString(index);
+        StringBuilder sb = new StringBuilder(64);
+        for (int i = hex.length(); i < 64; i++) {
+            sb.append('0');
+        }
+        return sb.append(hex).toString();
+    }
+
+    private void writeLocalRepository() throws IOException {
+        for (int i = 0; i < this.dependencyCount; i++) {
+            File versionDir = new File(getLocalRepoPath() + "/dep/group" + i + "/artifact" + i + "/1.0");
+            versionDir.mkdirs();
+            try (ZipOutputStream jar = new ZipOutputStream(
+                    new FileOutputStream(new File(versionDir, "artifact" + i + "-1.0.jar")))) {
+                jar.putNextEntry(new ZipEntry("META-INF/MANIFEST.MF"));
+                jar.write("Manifest-Version: 1.0\n".getBytes(StandardCharsets.UTF_8));
+                jar.closeEntry();
+                for (int p = 0; p < this.packagesPerDependency; p++) {
+                    String packagePath = packageName(i, p).replace('.', '/');
+                    for (int c = 0; c < this.classesPerPackage; c++) {
+                        jar.putNextEntry(new ZipEntry(packagePath + "/Class" + c + ".class"));
+                        jar.closeEntry();
+                    }
+                }
+            }
+        }
+    }
+
+    private void writeJacocoXmlReport() throws IOException {
+        File reportDir = new File(getJacocoReportDir());
+        reportDir.mkdirs();
+        try (Writer writer = newWriter(new File(reportDir, "jacoco_report.xml"))) {
+            writer.write("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>");
+            writer.write("<!DOCTYPE report PUBLIC \"-//JACOCO//DTD Report 1.1//EN\" \"report.dtd\">");
+            writer.write("<report name=\"JaCoCo Coverage Report\">");
+            writer.write("<sessioninfo id=\"bench\" start=\"1\" dump=\"2\"/>");
+            writeXmlPackage(writer, PROJECT_PACKAGE, 1);
+            for (int i = 0; i < this.dependencyCount; i++) {
+                for (int p = 0; p < this.packagesPerDependency; p++) {
+                    writeXmlPackage(writer, packageName(i, p), this.classesPerPackage);
+                }
+            }
+            writeXmlCounters(writer, 1);
+            writer.write("</report>");
+        }
+    }
+
+    private static void writeXmlPackage(Writer writer, String packageName, int classCount) throws IOException {
+        String packagePath = packageName.replace('.', '/');
+        writer.write("<package name=\"" + packagePath + "\">");
+        for (int c = 0; c < classCount; c++) {
+            writer.write("<class name=\"" + packagePath + "/Class" + c + "\" sourcefilename=\"Class" + c + ".java\">");
+            writer.write("<method name=\"run\" desc=\"()V\" line=\"3\">");
+            writeXmlCounters(writer, 1);
+            writer.write("</method>");
+            writeXmlCounters(writer, 1);
+            writer.write("</class>");
+            writer.write("<sourcefile name=\"Class" + c + ".java\"><line nr=\"3\" mi=\"4\" ci=\"6\" mb=\"1\" cb=\"1\"/>");
+            writeXmlCounters(writer, 1);
+            writer.write("</sourcefile>");
+        }
+        writeXmlCounters(writer, classCount);
+        writer.write("</package>");
+    }
+
+    private static void writeXmlCounters(Writer writer, int scale) throws IOException {
+        for (String type : COUNTER_TYPES) {
+            writer.write("<counter type=\"" + type + "\" missed=\"" + (4 * scale) + "\" covered=\"" + (6 * scale) + "\"/>");
+        }
+    }
+
+    private void writeJacocoHtmlReport() throws IOException {
+        File reportDir = new File(getJacocoReportDir());
+        File resourcesDir = new File(reportDir, "jacoco-resources");
+        resourcesDir.mkdirs();
+        for (String resource : new String[]{"report.css", "sort.js", "report.gif", "redbar.gif", "greenbar.gif"}) {
+            Files.write(new File(resourcesDir, resource).toPath(), new byte[512]);
+        }
+        Files.write(new File(reportDir, "index.html").toPath(),
+                htmlPage("JaCoCo Coverage Report", 1).getBytes(StandardCharsets.UTF_8));
+        writeHtmlPackage(reportDir, PROJECT_PACKAGE, 1);
+        for (int i = 0; i < this.dependencyCount; i++) {
+            for (int p = 0; p < this.packagesPerDependency; p++) {
+                writeHtmlPackage(reportDir, packageName(i, p), this.classesPerPackage);
+            }
+        }
+    }
+
+    private static void writeHtmlPackage(File reportDir, String packageName, int classCount) throws IOException {
+        File packageDir = new File(reportDir, packageName);
+        packageDir.mkdirs();
+        Files.write(new File(packageDir, "index.html").toPath(),
+                htmlPage(packageName, classCount).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * A page in the format of the JaCoCo HTML report,
+     * with one table row per class.
+     */
+    private static String htmlPage(String title, int rowCount) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("<?xml version=\"1.0\" encoding=\"UTF-8\"?><html xmlns=\"http://www.w3.org/1999/xhtml\" lang=\"en\">");
+        sb.append("<head><link rel=\"stylesheet\" href=\"../jacoco-resources/report.css\" type=\"text/css\"/>");
+        sb.append("<title>").append(title).append("</title></head><body><h1>").append(title).append("</h1>");
+        sb.append("<table class=\"coverage\" cellspacing=\"0\" id=\"coveragetable\"><thead><tr>");
+        sb.append("<td class=\"sortable\" id=\"a\">Element</td></tr></thead>");
+        sb.append("<tfoot><tr><td>Total</td>");
+        appendHtmlCells(sb, rowCount);
+        sb.append("</tr></tfoot><tbody>");
+        for (int r = 0; r < rowCount; r++) {
+            sb.append("<tr><td id=\"a").append(r).append("\"><a href=\"Class").append(r)
+                    .append(".html\" class=\"el_class\">Class").append(r).append("</a></td>");
+            appendHtmlCells(sb, 1);
+            sb.append("</tr>");
+        }
+        sb.append("</tbody></table></body></html>");
+        return sb.toString();
+    }
+
+    private static void appendHtmlCells(StringBuilder sb, int scale) {
+        long missed = 4L * scale * 1000;
+        long total = 10L * scale * 1000;
+        sb.append("<td class=\"bar\">").append(String.format("%,d", missed)).append(" of ")
+                .append(String.format("%,d", total)).append("</td><td class=\"ctr2\">60%</td>");
+        sb.append("<td class=\"bar\">").append(4 * scale).append(" of ").append(10 * scale)
+                .append("</td><td class=\"ctr2\">60%</td>");
+        for (int i = 0; i < 4; i++) {
+            sb.append("<td class=\"ctr1\">").append(4 * scale).append("</td><td class=\"ctr2\">")
+                    .append(10 * scale).append("</td>");
+        }
+    }
+
+    private static Writer newWriter(File file) throws IOException {
+        return new BufferedWriter(Files.newBufferedWriter(file.toPath(), StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,68 @@
+package jact.benchmarks;
+
+import jact.depUtils.CounterType;
+import jact.depUtils.DependencyUsage;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.text.DecimalFormat;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rendering a single usage entry of the reports.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UsageRenderingBenchmark {
+    private final StringBuilder out = new StringBuilder(4096);
+    private DependencyUsage usage;
+    private DependencyUsage total;
+    private DecimalFormat percentageFormat;
+
+    @Setup
+    public void setup() {
+        this.usage = new DependencyUsage();
+        this.total = new DependencyUsage();
+        this.percentageFormat = DependencyUsage.createPercentageFormat();
+        long value = 1234;
+        for (CounterType type : CounterType.values()) {
+            this.usage.add(type, value, value * 3);
+            this.total.add(type, value * 10, value * 30);
+            value *= 7;
+        }
+    }
+
+    @Benchmark
+    public StringBuilder usageHtml() throws IOException {
+        this.out.setLength(0);
+        this.usage.appendUsageHTML(this.out, "dep.group1-artifact1-1.0", this.total, false, false);
+        return this.out;
+    }
+
+    @Benchmark
+    public StringBuilder totalUsageXml() throws IOException {
+        this.out.setLength(0);
+        this.usage.appendTotalUsageXML(this.out, "    ");
+        return this.out;
+    }
+
+    @Benchmark
+    public StringBuilder usageMarkdown() throws IOException {
+        this.out.setLength(0);
+        this.usage.appendUsageMarkdown(this.out, "dep.group1:artifact1:1.0", this.percentageFormat);
+        return this.out;
+    }
+}
@@ -0,0 +1,282 @@
+package jact.core;
+
+import jact.depUtils.CounterType;
+import jact.depUtils.DependencyUsage;
+import jact.depUtils.ProjectDependency;
+import org.jacoco.core.analysis.Analyzer;
+import org.jacoco.core.analysis.CoverageBuilder;
+import org.jacoco.core.analysis.IBundleCoverage;
+import org.jacoco.core.analysis.IClassCoverage;
+import org.jacoco.core.analysis.ICounter;
+import org.jacoco.core.analysis.ICoverageNode;
+import org.jacoco.core.analysis.ICoverageVisitor;
+import org.jacoco.core.analysis.IPackageCoverage;
+import org.jacoco.core.tools.ExecFileLoader;
+import org.jacoco.report.FileMultiReportOutput;
+import org.jacoco.report.IReportGroupVisitor;
+import org.jacoco.report.IReportVisitor;
+import org.jacoco.report.MultiSourceFileLocator;
+import org.jacoco.report.html.HTMLFormatter;
+import org.jacoco.report.xml.XMLFormatter;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * In-process JaCoCo analysis of the shaded jar, or of the project
+ * classes and the dependency jars. Replaces the jacococli
+ * subprocess: the execution data is loaded and the classes are
+ * analyzed once, after which the JaCoCo reports are written.
+ * The HTML report can be written grouped by dependency, with the
+ * usage read directly from the coverage counters instead of the
+ * generated report.
+ */
+public class CoverageAnalysis {
+    // Same defaults as the jacococli `report` command
+    public static final String REPORT_NAME = "JaCoCo Coverage Report";
+    private static final int TAB_WIDTH = 4;
+
+    private final ExecFileLoader execFileLoader;
+    private final CoverageBuilder coverageBuilder;
+    private final IBundleCoverage bundle;
+    // Internal class name -> dependency jar the class was analyzed from
+    private final Map<String, ProjectDependency> classDependencies;
+
+    private CoverageAnalysis(ExecFileLoader execFileLoader, CoverageBuilder coverageBuilder,
+                             Map<String, ProjectDependency> classDependencies) {
+        this.execFileLoader = execFileLoader;
+        this.coverageBuilder = coverageBuilder;
+        this.bundle = coverageBuilder.getBundle(REPORT_NAME);
+        this.classDependencies = classDependencies;
+    }
+
+    /**
+     * Loads the execution data and analyzes the class files.
+     *
+     * @param execFilePath  path to the jacoco.exec file
+     * @param classFilesPath path to the jar (or directory) with the class files
+     * @return CoverageAnalysis
+     * @throws IOException
+     */
+    public static CoverageAnalysis analyze(String execFilePath, String classFilesPath) throws IOException {
+        ExecFileLoader loader = new ExecFileLoader();
+        loader.load(new File(execFilePath));
+
+        CoverageBuilder coverageBuilder = new CoverageBuilder();
+        Analyzer analyzer = new Analyzer(loader.getExecutionDataStore(), coverageBuilder);
+        analyzer.analyzeAll(new File(classFilesPath));
+        warnNoMatchClasses(coverageBuilder);
+        return new CoverageAnalysis(loader, coverageBuilder, new HashMap<>());
+    }
+
+    /**
+     * Loads the execution data and analyzes the classes of the
+     * project and every dependency jar, instead of a shaded jar.
+     * Each class is attributed to the jar it is analyzed from. A
+     * class present in several places is analyzed once, where it is
+     * found first (the project classes, then the dependencies in the
+     * given order), as the shaded jar would only contain it once.
+     *
+     * @param execFilePath     path to the jacoco.exec file
+     * @param classesDirectory directory with the class files of the project
+     * @param dependencyJars   the jar of each dependency, in the
+     *                         order the jars are analyzed
+     * @return CoverageAnalysis
+     * @throws IOException
+     */
+    public static CoverageAnalysis analyze(String execFilePath, String classesDirectory,
+                                           Map<ProjectDependency, File> dependencyJars) throws IOException {
+        ExecFileLoader loader = new ExecFileLoader();
+        loader.load(new File(execFilePath));
+
+        CoverageBuilder coverageBuilder = new CoverageBuilder();
+        JarCoverageVisitor visitor = new JarCoverageVisitor(coverageBuilder);
+        Analyzer analyzer = new Analyzer(loader.getExecutionDataStore(), visitor);
+        File classesDir = new File(classesDirectory);
+        if (classesDir.isDirectory()) {
+            analyzer.analyzeAll(classesDir);
+        }
+        for (Map.Entry<ProjectDependency, File> entry : dependencyJars.entrySet()) {
+            visitor.dependency = entry.getKey();
+            analyzer.analyzeAll(entry.getValue());
+        }
+        warnNoMatchClasses(coverageBuilder);
+        return new CoverageAnalysis(loader, coverageBuilder, visitor.classDependencies);
+    }
+
+    private static void warnNoMatchClasses(CoverageBuilder coverageBuilder) {
+        if (!coverageBuilder.getNoMatchClasses().isEmpty()) {
+            System.out.println("[WARN] Execution data does not match the class files of " +
+                    coverageBuilder.getNoMatchClasses().size() + " classes.");
+        }
+    }
+
+    /**
+     * Passes the classes analyzed for the first time on to the
+     * coverage builder and records the dependency they belong to.
+     */
+    private static class JarCoverageVisitor implements ICoverageVisitor {
+        private final CoverageBuilder coverageBuilder;
+        private final Set<String> analyzedClasses = new HashSet<>();
+        private final Map<String, ProjectDependency> classDependencies = new LinkedHashMap<>();
+        // Dependency of the jar being analyzed, null for the project classes
+        private ProjectDependency dependency;
+
+        private JarCoverageVisitor(CoverageBuilder coverageBuilder) {
+            this.coverageBuilder = coverageBuilder;
+        }
+
+        @Override
+        public void visitCoverage(IClassCoverage coverage) {
+            if (!this.analyzedClasses.add(coverage.getName())) {
+                return;
+            }
+            this.coverageBuilder.visitCoverage(coverage);
+            if (this.dependency != null) {
+                this.classDependencies.put(coverage.getName(), this.dependency);
+            }
+        }
+    }
+
+    /**
+     * Writes the JaCoCo XML report.
+     *
+     * @param outputFilePath
+     * @throws IOException
+     */
+    public void writeXmlReport(String outputFilePath) throws IOException {
+        File outputFile = new File(outputFilePath);
+        File parentDir = outputFile.getParentFile();
+        if (parentDir != null && !parentDir.exists()) {
+            parentDir.mkdirs();
+        }
+        try (OutputStream outputStream = new FileOutputStream(outputFile)) {
+            writeReport(new XMLFormatter().createVisitor(outputStream));
+        }
+    }
+
+    /**
+     * Writes the JaCoCo HTML report of a bundle, e.g. with
+     * the classes of the project only.
+     *
+     * @param outputDirectory
+     * @param bundle
+     * @throws IOException
+     */
+    public void writeHtmlReport(String outputDirectory, IBundleCoverage bundle) throws IOException {
+        IReportVisitor visitor = new HTMLFormatter().createVisitor(
+                new FileMultiReportOutput(new File(outputDirectory)));
+        visitInfo(visitor);
+        visitor.visitBundle(bundle, new MultiSourceFileLocator(TAB_WIDTH));
+        visitor.visitEnd();
+    }
+
+    /**
+     * Writes a JaCoCo HTML report with a group of bundles.
+     * The group page is the index of the output directory and
+     * every bundle is written to the subdirectory of its name,
+     * e.g. the packages of a dependency to `<bundle>/<package>/`.
+     * The pages link to the resources and sessions page of the
+     * output directory, so they are written only once.
+     *
+     * @param outputDirectory
+     * @param groupName
+     * @param bundles
+     * @throws IOException
+     */
+    public void writeGroupedHtmlReport(String outputDirectory, String groupName, Collection<IBundleCoverage> bundles)
+            throws IOException {
+        IReportVisitor visitor = new HTMLFormatter().createVisitor(
+                new FileMultiReportOutput(new File(outputDirectory)));
+        visitInfo(visitor);
+        IReportGroupVisitor group = visitor.visitGroup(groupName);
+        for (IBundleCoverage bundle : bundles) {
+            group.visitBundle(bundle, new MultiSourceFileLocator(TAB_WIDTH));
+        }
+        visitor.visitEnd();
+    }
+
+    private void writeReport(IReportVisitor visitor) throws IOException {
+        visitInfo(visitor);
+        // No sources are attached, as with the jacococli report
+        visitor.visitBundle(this.bundle, new MultiSourceFileLocator(TAB_WIDTH));
+        visitor.visitEnd();
+    }
+
+    private void visitInfo(IReportVisitor visitor) throws IOException {
+        visitor.visitInfo(this.execFileLoader.getSessionInfoStore().getInfos(),
+                this.execFileLoader.getExecutionDataStore().getContents());
+    }
+
+    /**
+     * Gets the dependency every analyzed class belongs to.
+     * Only known when the dependency jars were analyzed.
+     *
+     * @return Map with the internal class name as key, empty for a shaded jar
+     */
+    public Map<String, ProjectDependency> getClassDependencies() {
+        return this.classDependencies;
+    }
+
+    /**
+     * Gets the coverage of all analyzed classes.
+     *
+     * @return Collection<IClassCoverage>
+     */
+    public Collection<IClassCoverage> getClasses() {
+        return this.coverageBuilder.getClasses();
+    }
+
+    /**
+     * Creates a bundle of the given classes. The packages and
+     * source files are built the same way as for the complete
+     * analysis, so the counters of a package that is part of
+     * a single bundle match those of the complete report.
+     *
+     * @param name
+     * @param classes
+     * @return IBundleCoverage
+     */
+    public static IBundleCoverage createBundle(String name, Collection<IClassCoverage> classes) {
+        CoverageBuilder bundleBuilder = new CoverageBuilder();
+        for (IClassCoverage classCoverage : classes) {
+            bundleBuilder.visitCoverage(classCoverage);
+        }
+        return bundleBuilder.getBundle(name);
+    }
+
+    /**
+     * Gets the name of the directory JaCoCo writes
+     * the pages of a package to.
+     *
+     * @param packageCoverage
+     * @return the package name dot separated, `default` for the unnamed package
+     */
+    public static String packageDirName(IPackageCoverage packageCoverage) {
+        String packageName = packageCoverage.getName();
+        return packageName.isEmpty() ? "default" : packageName.replace('/', '.');
+    }
+
+    /**
+     * Converts the counters of a coverage node to a DependencyUsage.
+     *
+     * @param node
+     * @return DependencyUsage
+     */
+    public static DependencyUsage toDependencyUsage(ICoverageNode node) {
+        DependencyUsage usage = new DependencyUsage();
+        for (CounterType type : CounterType.values()) {
+            ICounter counter = node.getCounter(ICoverageNode.CounterEntity.valueOf(type.name()));
+            usage.add(type, counter.getMissedCount(), counter.getTotalCount());
+        }
+        return usage;
+    }
+}
@@ -1,97 +1,134 @@
 package jact.core;
 
 import jact.depUtils.DependencyUsage;
+import jact.depUtils.PackageToDependencyResolver;
 import jact.depUtils.ProjectDependency;
-import org.jsoup.Jsoup;
-import org.jsoup.nodes.Document;
+import org.jacoco.core.analysis.IBundleCoverage;
+import org.jacoco.core.analysis.IClassCoverage;
+import org.jacoco.core.analysis.IPackageCoverage;
 
 import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.text.DecimalFormat;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
-import static jact.depUtils.PackageToDependencyResolver.packageToDependency;
-import static jact.depUtils.ProjectDependencies.getIndirectUsageMap;
+import static jact.core.HtmlCellParser.parseFooterCells;
+import static jact.core.HtmlCellParser.parseFraction;
+import static jact.core.HtmlCellParser.parseNumber;
+import static jact.depUtils.ProjectDependency.depIdToDirName;
 import static jact.depUtils.ProjectDependency.depToDirName;
-import static jact.plugin.AbstractReportMojo.getJactReportPath;
 import static jact.utils.FileSystemUtils.*;
 
 /**
  * Creates the HTML version of the JACT Report
  */
 public class HtmlAugmenter {
-    private static String jacocoResPath = getJactReportPath() + "jacoco-resources";
-    private static ProjectDependency thisProject;
-    private static DependencyUsage totalDependencyUsage;
-    private static DependencyUsage completeUsage;
-    private static List<String> calculatedChildIds;
+    private static final String OVERVIEW_TEMPLATE = "html-templates/overviewTemplateStart.html";
+    private static final String DEP_OVERVIEW_TEMPLATE = "html-templates/depOverviewTemplateStart.html";
+    private static final String DEP_VIEW_TEMPLATE = "html-templates/indivDepViewTemplateStart.html";
+    private static final String END_TEMPLATE = "html-templates/endTemplate.html";
+    // Link of the sessions page to a class, the group is the package directory
+    private static final Pattern SESSIONS_CLASS_LINK = Pattern.compile("href=\"([^\"/]+)/");
+    // The dependency pages share the resources of the dependencies directory
+    private static final String DEP_RESOURCES_PATH = "../jacoco-resources/";
+
+    private final ReportContext context;
+    private final String jactReportPath;
+    private final String jacocoResPath;
+    private final ProjectDependency thisProject = new ProjectDependency();
+    private final DependencyUsage totalDependencyUsage = new DependencyUsage();
+    private final DependencyUsage completeUsage = new DependencyUsage();
+    // Dependency id -> usage of the dependency including all of its indirect dependencies
+    private final Map<String, DependencyUsage> transitiveUsages = new HashMap<>();
+    // Dependencies whose transitive usage is being calculated (guards against cycles)
+    private final Set<String> inProgressIds = new HashSet<>();
 
     // Report summary usages:
-    private static int nrDirectDeps = 0;
-    private static int nrIndirectDeps = 0;
+    private int nrDirectDeps = 0;
+    private int nrIndirectDeps = 0;
 
     // ONCE: Actual usage
-    private static DependencyUsage summaryTotalDepUsage;
-    private static DependencyUsage summaryDirectDepUsage;
-    private static DependencyUsage summaryIndirectDepUsage;
-    private static DependencyUsage summaryCompileScopeDepUsage;
-    private static DependencyUsage summaryTotalUsage;
+    private final DependencyUsage summaryTotalDepUsage = new DependencyUsage();
+    private final DependencyUsage summaryDirectDepUsage = new DependencyUsage();
+    private final DependencyUsage summaryIndirectDepUsage = new DependencyUsage();
+    private final DependencyUsage summaryCompileScopeDepUsage = new DependencyUsage();
+    private final DependencyUsage summaryTotalUsage = new DependencyUsage();
 
     // MULTIPLE: Indicated dependency heritage
-    private static int nrMultipleIndirectDeps = 0;
-    private static DependencyUsage summaryMultipleTotalDepUsage;
-    private static DependencyUsage summaryMultipleIndirectDepUsage;
-    private static DependencyUsage summaryMultipleTotalUsage;
+    private int nrMultipleIndirectDeps = 0;
+    private final DependencyUsage summaryMultipleTotalDepUsage = new DependencyUsage();
+    private final DependencyUsage summaryMultipleIndirectDepUsage = new DependencyUsage();
+    private final DependencyUsage summaryMultipleTotalUsage = new DependencyUsage();
+
+    public HtmlAugmenter(ReportContext context) {
+        this.context = context;
+        this.jactReportPath = context.getReportPath();
+        this.jacocoResPath = this.jactReportPath + "jacoco-resources";
+    }
 
     /**
      * Generates the entire JACT HTML report.
      *
-     * @param dependenciesMap
-     * @param projPackagesAndClassMap
-     * @param localRepoPath
-     * @param projId
+     * @param generateSummary also write the report summary
+     * @param incremental     only rewrite the pages of dependencies whose
+     *                        usage changed since the previous report
+     * @param analysis        in-process coverage analysis to write the jacoco
+     *                        pages grouped by dependency, or null to reorganize
+     *                        the jacoco report of the jacococli
      */
-    public static void generateHtmlReport(Map<String, ProjectDependency> dependenciesMap,
-                                          Map<String, Set<String>> projPackagesAndClassMap,
-                                          String localRepoPath, String projId, boolean generateSummary) {
-        thisProject = new ProjectDependency();
-        totalDependencyUsage = new DependencyUsage();
-        completeUsage = new DependencyUsage();
-        calculatedChildIds = new ArrayList<>();
-
-        // Report summary usages (for gathering results)
-        if(generateSummary){
-            summaryTotalUsage = new DependencyUsage();
-            summaryTotalDepUsage = new DependencyUsage();
-            summaryDirectDepUsage = new DependencyUsage();
-            summaryIndirectDepUsage = new DependencyUsage();
-            summaryCompileScopeDepUsage = new DependencyUsage();
-            summaryMultipleTotalDepUsage = new DependencyUsage();
-            summaryMultipleIndirectDepUsage = new DependencyUsage();
-            summaryMultipleTotalUsage = new DependencyUsage();
-        }
-
-        // Rename the original index.html file
-        String inputFilePath =
-                renameFile(getJactReportPath() + "index.html", "originalIndex.html");
-        // Format the index.html report:
-        formatHtmlReport(inputFilePath);
-        // Creates the report files and moves resource directories
-        setupReport(dependenciesMap);
+    public void generateHtmlReport(boolean generateSummary, boolean incremental, CoverageAnalysis analysis) {
+        Map<String, ProjectDependency> dependenciesMap = this.context.getDependenciesMap();
 
+        List<PackageDirectory> packageDirectories = null;
+        Map<ProjectDependency, IBundleCoverage> dependencyBundles = null;
         try {
-            extractReportAndMoveDirs(dependenciesMap, projPackagesAndClassMap, localRepoPath, projId);
+            if (analysis != null) {
+                dependencyBundles = extractAnalysis(analysis);
+            } else {
+                packageDirectories = extractReport();
+            }
         } catch (IOException e) {
             throw new RuntimeException(e);
         }
+        // Rename the original index.html file
+        renameFile(this.jactReportPath + "index.html", "originalIndex.html");
+        // Get all the project/dependency/package usage
+        calculateAllUsages(dependenciesMap, generateSummary);
+
+        ReportState reportState = new ReportState();
+        Set<String> changedDepIds = incremental ?
+                prepareIncrementalReport(dependenciesMap, reportState) : new HashSet<>(dependenciesMap.keySet());
+
+        // Sets up the dependency directories and writes or moves the packages into them
+        setupReport(dependenciesMap, changedDepIds);
         try {
-            createDependencyReports(dependenciesMap, generateSummary);
+            if (analysis != null) {
+                writeDependencyPackages(analysis, dependencyBundles, changedDepIds);
+            } else {
+                movePackageDirectories(packageDirectories, changedDepIds);
+                copySessionsPage(packageDirectories);
+            }
+            createDependencyReports(dependenciesMap, changedDepIds);
         } catch (IOException e) {
             throw new RuntimeException(e);
         }
+        if (incremental) {
+            reportState.write(this.jactReportPath);
+        }
 
         // Creates a report summary (mainly for gathering results)
         if (generateSummary) {
@@ -100,168 +137,406 @@ public class HtmlAugmenter {
     }
 
 
-    private static void setupIndirectReports(Map<String, ProjectDependency> dependenciesMap) {
-        for (String depId : getIndirectUsageMap().keySet()) {
-            try {
-                writeModifiedTemplateToFile("html-templates/indivDepViewTemplateStart.html",
-                        dependenciesMap.get(depId).getReportPath() + "indirect-dependencies.html",
-                        "<span style=\"display: inline-block;\">Indirect Dependencies from: <br>" +
-                                depToDirName(dependenciesMap.get(depId)) + "</span>");
-            } catch (IOException e) {
-                throw new RuntimeException(e);
+    /**
+     * Fingerprints the pages of all dependencies and compares them
+     * with the state of the previous report. The directories of
+     * changed and removed dependencies are removed, so that their
+     * pages are written from scratch.
+     *
+     * @param dependenciesMap
+     * @param reportState     filled with the fingerprints of this report
+     * @return ids of the dependencies whose pages have to be written
+     */
+    private Set<String> prepareIncrementalReport(Map<String, ProjectDependency> dependenciesMap,
+                                                 ReportState reportState) {
+        ReportState previousState = ReportState.read(this.jactReportPath);
+        Set<String> changedDepIds = new HashSet<>();
+        for (ProjectDependency dependency : dependenciesMap.values()) {
+            String fingerprint = ReportState.fingerprint(dependency,
+                    this.context.getIndirectUsageMap().get(dependency.getId()));
+            reportState.setFingerprint(dependency.getId(), fingerprint);
+            File reportDir = new File(dependency.getReportPath());
+            if (!fingerprint.equals(previousState.getFingerprint(dependency.getId())) || !reportDir.isDirectory()) {
+                removeDirectory(reportDir);
+                changedDepIds.add(dependency.getId());
             }
         }
+        for (String depId : previousState.getDependencyIds()) {
+            if (!dependenciesMap.containsKey(depId)) {
+                removeDirectory(new File(this.jactReportPath + "dependencies/" + depIdToDirName(depId)));
+            }
+        }
+        System.out.println("Incremental report: " + changedDepIds.size() + " of " +
+                dependenciesMap.size() + " dependencies changed.");
+        return changedDepIds;
     }
 
-    private static void setupDependencyReports(Map<String, ProjectDependency> dependenciesMap) {
-        // Path to jacoco-resources (to be copied to subdirectories for correct icons and styling)
-        copyDirectory(new File(jacocoResPath),
-                new File(getJactReportPath() + "dependencies/jacoco-resources"));
-        // Create the dependencies overview
-        // Writes the HTML template for the Dependency Overview
-        try {
-            writeTemplateToFile("html-templates/depOverviewTemplateStart.html", getJactReportPath() + "dependencies/index.html");
-        } catch (IOException e) {
-            throw new RuntimeException(e);
-        }
+    /**
+     * Sets up the directory of each changed dependency
+     * and copies the jacoco-resources required for
+     * the icons and styling of the report pages once
+     * to the dependencies directory, where all pages
+     * of the dependencies refer to them.
+     *
+     * @param dependenciesMap
+     * @param changedDepIds
+     */
+    private void setupReport(Map<String, ProjectDependency> dependenciesMap, Set<String> changedDepIds) {
+        copyDirectory(new File(jacocoResPath), new File(this.jactReportPath + "dependencies/jacoco-resources"));
         for (ProjectDependency dependency : dependenciesMap.values()) {
-            String path = dependency.getReportPath();
-            // Set up the directory and copy the jacoco-resources
-            copyDirectory(new File(jacocoResPath),
-                    new File(path + "jacoco-resources"));
-            // Set up the index.html file
-            try {
-                writeModifiedTemplateToFile("html-templates/indivDepViewTemplateStart.html",
-                        path + "index.html", depToDirName(dependency));
-            } catch (IOException e) {
-                throw new RuntimeException(e);
+            if (changedDepIds.contains(dependency.getId())) {
+                new File(dependency.getReportPath()).mkdirs();
             }
         }
     }
 
     /**
-     * Creates the report files and copies the required
-     * resources to each dependency directory.
+     * Assigns the analyzed classes to the project or their dependency
+     * and writes the jacoco pages of the project packages. Packages
+     * split across several dependencies are resolved per class. The
+     * usage is read from the counters of the resulting bundles, so the
+     * jacoco pages are never parsed.
      *
-     * @param dependenciesMap
+     * @param analysis
+     * @return the bundle of each matched dependency
+     * @throws IOException
      */
-    private static void setupReport(Map<String, ProjectDependency> dependenciesMap) {
+    private Map<ProjectDependency, IBundleCoverage> extractAnalysis(CoverageAnalysis analysis) throws IOException {
+        Map<String, Set<String>> projPackagesAndClassMap = this.context.getProjPackagesAndClassMap();
+        PackageToDependencyResolver resolver = this.context.getResolver();
+
+        thisProject.setId(this.context.getProjId());
+        thisProject.setReportPath(this.jactReportPath);
+
+        List<IClassCoverage> projectClasses = new ArrayList<>();
+        Map<ProjectDependency, List<IClassCoverage>> dependencyClasses = new LinkedHashMap<>();
+        // Package name -> matched dependency, every package is resolved once
+        Map<String, ProjectDependency> packageDeps = new HashMap<>();
+        for (IClassCoverage classCoverage : analysis.getClasses()) {
+            String packageName = classCoverage.getPackageName();
+            if (projPackagesAndClassMap.containsKey(packageName.replace('/', '.'))) {
+                projectClasses.add(classCoverage);
+                continue;
+            }
+            ProjectDependency matchedDep = packageDeps.get(packageName);
+            if (matchedDep == null) {
+                if (resolver.isSplitPackage(packageName)) {
+                    matchedDep = resolver.classToDependency(classCoverage.getName());
+                } else {
+                    matchedDep = resolver.packageToDependency(packageName.replace('/', '.'));
+                    packageDeps.put(packageName, matchedDep);
+                }
+            }
+            // Classes that could not be matched are left out of the report
+            if (matchedDep.getId() != null) {
+                dependencyClasses.computeIfAbsent(matchedDep, k -> new ArrayList<>()).add(classCoverage);
+            }
+        }
 
-        // Create the whole project overview
-        try {
-            // Writes the overview HTML template
-            writeTemplateToFile("html-templates/overviewTemplateStart.html", getJactReportPath() + "index.html");
-        } catch (IOException e) {
-            System.err.println("Error: " + e.getMessage());
-            e.printStackTrace();
+        IBundleCoverage projectBundle = CoverageAnalysis.createBundle(CoverageAnalysis.REPORT_NAME, projectClasses);
+        addPackageUsages(thisProject, projectBundle);
+        Map<ProjectDependency, IBundleCoverage> dependencyBundles = new LinkedHashMap<>();
+        for (Map.Entry<ProjectDependency, List<IClassCoverage>> entry : dependencyClasses.entrySet()) {
+            // The bundle name is the directory of the dependency
+            IBundleCoverage bundle = CoverageAnalysis.createBundle(depToDirName(entry.getKey()), entry.getValue());
+            addPackageUsages(entry.getKey(), bundle);
+            dependencyBundles.put(entry.getKey(), bundle);
         }
 
-        setupDependencyReports(dependenciesMap);
-        setupIndirectReports(dependenciesMap);
+        analysis.writeHtmlReport(this.jactReportPath, projectBundle);
+        return dependencyBundles;
+    }
+
+    private static void addPackageUsages(ProjectDependency dependency, IBundleCoverage bundle) {
+        for (IPackageCoverage packageCoverage : bundle.getPackages()) {
+            // Like the jacoco pages, packages without code (e.g. only annotations) are left out
+            if (!packageCoverage.containsCode()) {
+                continue;
+            }
+            DependencyUsage usage = CoverageAnalysis.toDependencyUsage(packageCoverage);
+            dependency.dependencyUsage.addAll(usage);
+            dependency.packageUsageMap.put(CoverageAnalysis.packageDirName(packageCoverage), usage);
+        }
+    }
+
+    /**
+     * Writes the jacoco pages of the packages of all changed
+     * dependencies straight into their dependency directories,
+     * as one report group. The pages share the resources and
+     * the sessions page of the dependencies directory. The
+     * group and bundle index pages are replaced by the JACT
+     * pages afterwards.
+     *
+     * @param analysis
+     * @param dependencyBundles
+     * @param changedDepIds
+     * @throws IOException
+     */
+    private void writeDependencyPackages(CoverageAnalysis analysis,
+                                         Map<ProjectDependency, IBundleCoverage> dependencyBundles,
+                                         Set<String> changedDepIds) throws IOException {
+        List<IBundleCoverage> changedBundles = new ArrayList<>();
+        for (Map.Entry<ProjectDependency, IBundleCoverage> entry : dependencyBundles.entrySet()) {
+            if (changedDepIds.contains(entry.getKey().getId()) && entry.getValue().containsCode()) {
+                changedBundles.add(entry.getValue());
+            }
+        }
+        // Also written without changed bundles, to update the sessions page
+        analysis.writeGroupedHtmlReport(this.jactReportPath + "dependencies", "Dependencies", changedBundles);
     }
 
     /**
      * Reads the html jacoco report to create corresponding ProjectDependency objects
-     * for augmentation and usage tracking as well as sets up the required resources
-     * and folder structure.
+     * for augmentation and usage tracking. The packages are resolved first, then
+     * their usage is extracted concurrently, and finally the usage is merged into
+     * the project and the dependencies in directory order.
      *
-     * @param dependenciesMap
-     * @param projPackagesAndClassMap
-     * @param localRepoPath
-     * @param projId
+     * @return the package directories of the jacoco report
      * @throws IOException
      */
-    private static void extractReportAndMoveDirs(Map<String, ProjectDependency> dependenciesMap,
-                                                 Map<String, Set<String>> projPackagesAndClassMap,
-                                                 String localRepoPath, String projId) throws IOException {
-
-        thisProject.setId(projId);
-        thisProject.setReportPath(getJactReportPath());
-
-        // Traverse the "report" directory:
-        // Moves packages to their respective dependency directory and create their `index.html` file
-        File reportDir = new File(getJactReportPath());
-        if (reportDir.exists() && reportDir.isDirectory()) {
-            File[] directories = reportDir.listFiles(File::isDirectory);
-            if (directories != null) {
-                for (File directory : directories) {
-                    String dirName = directory.getName();
-                    if (!dirName.equals("dependencies") && !dirName.equals("jact_xml_package_reports") &&
-                            !dirName.equals("jacoco-resources")) {
-                        if (projPackagesAndClassMap.containsKey(dirName)) {
-                            extractAndAddPackageTotal(getJactReportPath() + dirName +
-                                    "/index.html", thisProject, dirName);
-                        } else {
-                            // Match the package to its dependency
-                            ProjectDependency matchedDep =
-                                    packageToDependency(dirName, dependenciesMap, localRepoPath);
-                            if (matchedDep.getId() != null) {
-                                extractAndAddPackageTotal(getJactReportPath() + dirName +
-                                        "/index.html", matchedDep, dirName);
-                                moveDirectory(directory, matchedDep.getReportPath());
-                            } else {
-                                removeDirectory(directory);
-                            }
-                        }
-                    }
-                }
+    private List<PackageDirectory> extractReport() throws IOException {
+        Map<String, Set<String>> projPackagesAndClassMap = this.context.getProjPackagesAndClassMap();
+        int threadCount = this.context.getThreadCount();
+
+        thisProject.setId(this.context.getProjId());
+        thisProject.setReportPath(this.jactReportPath);
+
+        // Traverse the "report" directory for the package directories
+        List<PackageDirectory> packageDirectories = new ArrayList<>();
+        File reportDir = new File(this.jactReportPath);
+        if (!reportDir.exists() || !reportDir.isDirectory()) {
+            return packageDirectories;
+        }
+        File[] directories = reportDir.listFiles(File::isDirectory);
+        if (directories == null) {
+            return packageDirectories;
+        }
+
+        // Match the packages to the project or their dependency
+        for (File directory : directories) {
+            String dirName = directory.getName();
+            if (!dirName.equals("dependencies") && !dirName.equals("jact_xml_package_reports") &&
+                    !dirName.equals("jacoco-resources")) {
+                ProjectDependency matchedDep = projPackagesAndClassMap.containsKey(dirName) ?
+                        thisProject : this.context.getResolver().packageToDependency(dirName);
+                packageDirectories.add(new PackageDirectory(directory, matchedDep));
+            }
+        }
+
+        // Packages are independent of each other
+        if (threadCount > 1 && packageDirectories.size() > 1) {
+            processPackageDirectoriesConcurrently(packageDirectories, threadCount);
+        } else {
+            for (PackageDirectory packageDirectory : packageDirectories) {
+                processPackageDirectory(packageDirectory);
+            }
+        }
+
+        for (PackageDirectory packageDirectory : packageDirectories) {
+            if (packageDirectory.usage != null) {
+                ProjectDependency matchedDep = packageDirectory.matchedDep;
+                matchedDep.dependencyUsage.addAll(packageDirectory.usage);
+                matchedDep.packageUsageMap.put(packageDirectory.directory.getName(), packageDirectory.usage);
             }
         }
+        return packageDirectories;
     }
 
+    /**
+     * Moves the package directories to the report of their
+     * dependency. The packages of unchanged dependencies
+     * are already part of the report and are removed.
+     *
+     * @param packageDirectories
+     * @param changedDepIds
+     * @throws IOException
+     */
+    private void movePackageDirectories(List<PackageDirectory> packageDirectories, Set<String> changedDepIds)
+            throws IOException {
+        for (PackageDirectory packageDirectory : packageDirectories) {
+            ProjectDependency matchedDep = packageDirectory.matchedDep;
+            // Unmatched packages are removed when they are processed
+            if (packageDirectory.usage == null || matchedDep == thisProject) {
+                continue;
+            }
+            if (changedDepIds.contains(matchedDep.getId())) {
+                relinkPackagePages(packageDirectory.directory);
+                moveDirectory(packageDirectory.directory, matchedDep.getReportPath());
+            } else {
+                removeDirectory(packageDirectory.directory);
+            }
+        }
+    }
 
     /**
-     * Formats the input HTML report with
-     * newlines and correct indentation.
+     * Copies the sessions page of the jacococli report to the
+     * dependencies directory, where the pages of the dependencies
+     * refer to it, with its class links pointing to the moved
+     * packages. The grouped report writes it there itself.
      *
-     * @param inputFilePath
+     * @param packageDirectories
+     * @throws IOException
+     */
+    private void copySessionsPage(List<PackageDirectory> packageDirectories) throws IOException {
+        File sessionsPage = new File(this.jactReportPath + "jacoco-sessions.html");
+        if (!sessionsPage.isFile()) {
+            return;
+        }
+        // Package directory -> its location relative to the dependencies directory
+        Map<String, String> packageLinks = new HashMap<>();
+        for (PackageDirectory packageDirectory : packageDirectories) {
+            ProjectDependency matchedDep = packageDirectory.matchedDep;
+            if (packageDirectory.usage == null) {
+                continue;
+            }
+            String dirName = packageDirectory.directory.getName();
+            String link = matchedDep == thisProject ? "../" + dirName : depToDirName(matchedDep) + "/" + dirName;
+            packageLinks.put(dirName, link);
+        }
+        String html = new String(Files.readAllBytes(sessionsPage.toPath()), StandardCharsets.UTF_8);
+        Matcher matcher = SESSIONS_CLASS_LINK.matcher(html);
+        StringBuffer relinked = new StringBuffer(html.length());
+        while (matcher.find()) {
+            String packageLink = packageLinks.get(matcher.group(1));
+            String link = packageLink != null ? packageLink : matcher.group(1);
+            matcher.appendReplacement(relinked, Matcher.quoteReplacement("href=\"" + link + "/"));
+        }
+        matcher.appendTail(relinked);
+        Files.write(Paths.get(this.jactReportPath + "dependencies/jacoco-sessions.html"),
+                relinked.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Points the pages of a package at the jacoco-resources and the
+     * sessions page of the dependencies directory. The package is moved
+     * one directory deeper, from the report into the directory of its
+     * dependency.
+     *
+     * @param packageDir
+     * @throws IOException
      */
-    private static void formatHtmlReport(String inputFilePath) {
+    private static void relinkPackagePages(File packageDir) throws IOException {
+        File[] pages = packageDir.listFiles((dir, name) -> name.endsWith(".html"));
+        if (pages == null) {
+            return;
+        }
+        for (File page : pages) {
+            String html = new String(Files.readAllBytes(page.toPath()), StandardCharsets.UTF_8);
+            String relinked = html.replace("\"../jacoco-resources/", "\"../../jacoco-resources/")
+                    .replace("\"../jacoco-sessions.html\"", "\"../../jacoco-sessions.html\"");
+            if (!relinked.equals(html)) {
+                Files.write(page.toPath(), relinked.getBytes(StandardCharsets.UTF_8));
+            }
+        }
+    }
+
+    /**
+     * Processes the package directories with a fixed
+     * number of threads, waiting for all of them.
+     *
+     * @param packageDirectories
+     * @param threadCount
+     * @throws IOException
+     */
+    private void processPackageDirectoriesConcurrently(List<PackageDirectory> packageDirectories,
+                                                              int threadCount) throws IOException {
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(threadCount, packageDirectories.size()));
         try {
-            // Read the HTML file
-            File inputFile = new File(inputFilePath);
-            Document doc = Jsoup.parse(inputFile, "UTF-8");
-            String formattedHtml = doc.outerHtml();
-            // Write the formatted HTML back to the original file, overwriting its previous content
-            org.apache.commons.io.FileUtils.writeStringToFile(inputFile, formattedHtml, "UTF-8");
-        } catch (IOException e) {
-            System.err.println("Error: " + e.getMessage());
-            e.printStackTrace();
+            List<Future<?>> futures = new ArrayList<>();
+            for (PackageDirectory packageDirectory : packageDirectories) {
+                futures.add(executor.submit(() -> {
+                    processPackageDirectory(packageDirectory);
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while processing the package directories", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new RuntimeException(e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Gets the usage of a single package. Packages that
+     * could not be matched are removed. Only touches the
+     * given package, so it can run concurrently.
+     *
+     * @param packageDirectory
+     * @throws IOException
+     */
+    private void processPackageDirectory(PackageDirectory packageDirectory) throws IOException {
+        File directory = packageDirectory.directory;
+        ProjectDependency matchedDep = packageDirectory.matchedDep;
+        if (matchedDep.getId() == null) {
+            removeDirectory(directory);
+            return;
+        }
+        packageDirectory.usage = extractPackageTotal(new File(directory, "index.html").getPath());
+    }
+
+    /**
+     * A package directory of the jacoco report
+     * and the project/dependency it belongs to.
+     */
+    private static class PackageDirectory {
+        private final File directory;
+        private final ProjectDependency matchedDep;
+        // Set once the package has been processed
+        private volatile DependencyUsage usage;
+
+        private PackageDirectory(File directory, ProjectDependency matchedDep) {
+            this.directory = directory;
+            this.matchedDep = matchedDep;
         }
     }
 
 
     /**
-     * Creates the complete jact-report by reading the usage and writing
-     * to the corresponding files.
+     * Creates the complete jact-report by writing the
+     * calculated usage to the corresponding files.
      *
      * @param dependenciesMap
+     * @param changedDepIds
      */
-    private static void createDependencyReports(Map<String, ProjectDependency> dependenciesMap, boolean generateSummary) throws IOException {
-        // Get all the project/dependency/package usage
-        calculateAllUsages(dependenciesMap, generateSummary);
-
+    private void createDependencyReports(Map<String, ProjectDependency> dependenciesMap,
+                                         Set<String> changedDepIds) throws IOException {
         // Write dependency usage
-        writeDependenciesToFile(dependenciesMap);
+        writeDependenciesToFile(dependenciesMap, changedDepIds);
 
         // Write project packages and overview usage
         writeOverviewToFile();
     }
 
 
-    private static void writeIndirectToFile(ProjectDependency pd) throws IOException {
-        if (getIndirectUsageMap().containsKey(pd.getId())) {
-            String path = pd.getReportPath();
-            writeHTMLStringToFile(path + "index.html",
-                    getIndirectUsageMap().get(pd.getId()).usageToHTML("indirect-dependencies",
-                            pd.dependencyUsage, false, true));
-            writeHTMLTotalToFile(path + "indirect-dependencies.html", getIndirectUsageMap().get(pd.getId()).totalUsageToHTML());
+    /**
+     * Adds the indirect dependency entry to the page of the
+     * dependency and writes its indirect dependencies page.
+     *
+     * @param pd
+     * @param page the page of the dependency
+     * @throws IOException
+     */
+    private void writeIndirectToFile(ProjectDependency pd, HtmlPage page) throws IOException {
+        DependencyUsage indirectUsage = this.context.getIndirectUsageMap().get(pd.getId());
+        if (indirectUsage != null) {
+            page.appendUsage(indirectUsage, "indirect-dependencies", pd.dependencyUsage, false, true);
+            HtmlPage indirectPage = new HtmlPage(HtmlTemplate.get(DEP_VIEW_TEMPLATE), HtmlTemplate.get(END_TEMPLATE),
+                    "<span style=\"display: inline-block;\">Indirect Dependencies from: <br>" +
+                            depToDirName(pd) + "</span>", DEP_RESOURCES_PATH);
+            indirectPage.setTotal(indirectUsage.totalUsageToHTML());
             for (ProjectDependency child : pd.getChildDeps().values()) {
-                writeHTMLStringToFile(path + "indirect-dependencies.html",
-                        child.dependencyUsage.usageToHTML(depToDirName(child),
-                                getIndirectUsageMap().get(pd.getId()), false, true));
+                indirectPage.appendUsage(child.dependencyUsage, depToDirName(child), indirectUsage, false, true);
             }
-            writeTemplateToFile("html-templates/endTemplate.html", path + "indirect-dependencies.html");
+            indirectPage.write(pd.getReportPath() + "indirect-dependencies.html");
         }
     }
 
@@ -269,78 +544,101 @@ public class HtmlAugmenter {
      * Writes all dependencies to the report. Dependencies
      * without parents are written to the overview and
      * child dependencies are written as entries in their
-     * respective indirect reports.
+     * respective indirect reports. Only the pages of
+     * changed dependencies are written.
      *
      * @param dependenciesMap
+     * @param changedDepIds
      * @throws IOException
      */
-    private static void writeDependenciesToFile(Map<String, ProjectDependency> dependenciesMap) throws IOException {
+    private void writeDependenciesToFile(Map<String, ProjectDependency> dependenciesMap,
+                                         Set<String> changedDepIds) throws IOException {
+        HtmlPage overview = new HtmlPage(HtmlTemplate.get(DEP_OVERVIEW_TEMPLATE), HtmlTemplate.get(END_TEMPLATE), null);
         for (ProjectDependency pd : dependenciesMap.values()) {
-            String path = pd.getReportPath();
             if (pd.rootDep) {
-                writeHTMLStringToFile(getJactReportPath() + "dependencies/" + "index.html",
-                        pd.dependencyUsage.usageToHTML(depToDirName(pd), totalDependencyUsage, false, false));
+                overview.appendUsage(pd.dependencyUsage, depToDirName(pd), totalDependencyUsage, false, false);
             }
-            writeHTMLTotalToFile(path + "index.html", pd.dependencyUsage.totalUsageToHTML());
-            writeIndirectToFile(pd);
-            pd.writePackagesToFile(path, pd.dependencyUsage);
-            // Write the end of the template here
-            writeModifiedTemplateToFile("html-templates/endTemplate.html",
-                    path + "index.html", depToDirName(pd));
-        }
-        // Writes the HTML template for the Dependency Overview
-        writeTemplateToFile("html-templates/endTemplate.html", getJactReportPath() + "dependencies/index.html");
+            if (!changedDepIds.contains(pd.getId())) {
+                continue;
+            }
+            HtmlPage page = new HtmlPage(HtmlTemplate.get(DEP_VIEW_TEMPLATE), HtmlTemplate.get(END_TEMPLATE),
+                    depToDirName(pd), DEP_RESOURCES_PATH);
+            page.setTotal(pd.dependencyUsage.totalUsageToHTML());
+            writeIndirectToFile(pd, page);
+            for (Map.Entry<String, DependencyUsage> entry : pd.packageUsageMap.entrySet()) {
+                page.appendUsage(entry.getValue(), entry.getKey(), pd.dependencyUsage, true, false);
+            }
+            page.write(pd.getReportPath() + "index.html");
+        }
+        overview.setTotal(totalDependencyUsage.totalUsageToHTML());
+        overview.write(this.jactReportPath + "dependencies/index.html");
     }
 
     /**
-     * Writes the complete project overview
-     * as well as the dependency overview.
+     * Writes the complete project overview.
      *
      * @throws IOException
      */
-    private static void writeOverviewToFile() throws IOException {
-        // Write the total dependency usage AND its entry in the overview
-        writeHTMLStringToFile(getJactReportPath() + "index.html",
-                totalDependencyUsage.usageToHTML("dependencies", completeUsage, false, false));
-        writeHTMLTotalToFile(getJactReportPath() + "dependencies/index.html", totalDependencyUsage.totalUsageToHTML());
+    private void writeOverviewToFile() throws IOException {
+        HtmlPage overview = new HtmlPage(HtmlTemplate.get(OVERVIEW_TEMPLATE), HtmlTemplate.get(END_TEMPLATE), null);
+        // Write the total dependency usage entry in the overview
+        overview.appendUsage(totalDependencyUsage, "dependencies", completeUsage, false, false);
 
         // Write the project package overview entries:
         for (Map.Entry<String, DependencyUsage> entry : thisProject.packageUsageMap.entrySet()) {
-            try {
-                writeHTMLStringToFile(getJactReportPath() + "index.html",
-                        entry.getValue().usageToHTML(entry.getKey(), completeUsage, true, false));
-            } catch (IOException e) {
-                throw new RuntimeException(e);
-            }
+            overview.appendUsage(entry.getValue(), entry.getKey(), completeUsage, true, false);
         }
         // Write the overview total: Project + Dependencies (incl. indirect)
-        writeHTMLTotalToFile(getJactReportPath() + "index.html", completeUsage.totalUsageToHTML());
-
-        // Writes the overview HTML template
-        writeTemplateToFile("html-templates/endTemplate.html", getJactReportPath() + "index.html");
+        overview.setTotal(completeUsage.totalUsageToHTML());
+        overview.write(this.jactReportPath + "index.html");
     }
 
 
     /**
-     * Calculates the indirect dependency usage
-     * for the input dependency recursively adding
-     * the children dependencies.
+     * Calculates the indirect dependency usage of the input
+     * dependency, i.e. the sum of the transitive usage of its
+     * children. A dependency shared by several children is
+     * counted once per path, as it is in the reports.
      *
      * @param dependency
-     * @param includeSelf
      * @return DependencyUsage
      */
-    private static DependencyUsage calculateIndirectDepUsage(ProjectDependency dependency, boolean includeSelf) {
-        DependencyUsage currUsage = new DependencyUsage();
-        if (!calculatedChildIds.contains(dependency.getId())) {
-            for (ProjectDependency child : dependency.getChildDeps().values()) {
-                currUsage.addAll(calculateIndirectDepUsage(child, true));
+    private DependencyUsage calculateIndirectDepUsage(ProjectDependency dependency) {
+        DependencyUsage indirectUsage = new DependencyUsage();
+        for (ProjectDependency child : dependency.getChildDeps().values()) {
+            // Children skipped by the scope filter have no id
+            if (child.getId() != null) {
+                indirectUsage.addAll(calculateTransitiveUsage(child));
             }
         }
-        if (includeSelf) {
-            currUsage.addAll(dependency.dependencyUsage);
-        }
-        return currUsage;
+        return indirectUsage;
+    }
+
+    /**
+     * Calculates the usage of the input dependency including
+     * all its indirect dependencies with a post-order traversal.
+     * The result is memoized, so every dependency is only
+     * traversed once even when it is shared by many parents.
+     * Must be called before any indirect usage is added to
+     * the dependencies.
+     *
+     * @param dependency
+     * @return DependencyUsage
+     */
+    private DependencyUsage calculateTransitiveUsage(ProjectDependency dependency) {
+        DependencyUsage transitiveUsage = transitiveUsages.get(dependency.getId());
+        if (transitiveUsage != null) {
+            return transitiveUsage;
+        }
+        if (!inProgressIds.add(dependency.getId())) {
+            // Dependency cycle: its usage is already counted further up
+            return new DependencyUsage();
+        }
+        transitiveUsage = calculateIndirectDepUsage(dependency);
+        transitiveUsage.addAll(dependency.dependencyUsage);
+        inProgressIds.remove(dependency.getId());
+        transitiveUsages.put(dependency.getId(), transitiveUsage);
+        return transitiveUsage;
     }
 
 
@@ -351,10 +649,18 @@ public class HtmlAugmenter {
      *
      * @param dependenciesMap
      */
-    private static void calculateAllUsages(Map<String, ProjectDependency> dependenciesMap, boolean generateSummary) {
+    private void calculateAllUsages(Map<String, ProjectDependency> dependenciesMap, boolean generateSummary) {
         if(generateSummary){
             writeDepToCSV(dependenciesMap);
         }
+        // The indirect usage is calculated from the direct usage of all
+        // dependencies, so it is completed before it is added to any of them.
+        Map<String, DependencyUsage> indirectUsages = new HashMap<>();
+        for (ProjectDependency dependency : dependenciesMap.values()) {
+            if (!dependency.getChildDeps().isEmpty()) {
+                indirectUsages.put(dependency.getId(), calculateIndirectDepUsage(dependency));
+            }
+        }
         for (ProjectDependency dependency : dependenciesMap.values()) {
             if(generateSummary){
                 summaryTotalDepUsage.addAll((dependency.dependencyUsage));
@@ -370,15 +676,14 @@ public class HtmlAugmenter {
                 }
             }
             if (!dependency.getChildDeps().isEmpty()) {
-                DependencyUsage indirectDepsUsage = calculateIndirectDepUsage(dependency, false);
+                DependencyUsage indirectDepsUsage = indirectUsages.get(dependency.getId());
                 if(generateSummary){
                     // Multiple Indirect Dependencies
                     nrMultipleIndirectDeps += dependency.getChildDeps().size();
                     summaryMultipleIndirectDepUsage.addAll(indirectDepsUsage);
                 }
                 dependency.dependencyUsage.addAll(indirectDepsUsage);
-                getIndirectUsageMap().get(dependency.getId()).addAll(indirectDepsUsage);
-                calculatedChildIds.add(dependency.getId());
+                this.context.getIndirectUsageMap().get(dependency.getId()).addAll(indirectDepsUsage);
             }
             // Calculate the total
             // Only ROOT dependencies are added, since the indirect
@@ -401,59 +706,20 @@ public class HtmlAugmenter {
     }
 
     /**
-     * Loads a html template from resources.
-     *
-     * @param resourceName
-     * @return
-     * @throws IOException
-     */
-    private static String loadTemplate(String resourceName) throws IOException {
-        try (InputStream inputStream = HtmlAugmenter.class.getClassLoader().getResourceAsStream(resourceName)) {
-            if (inputStream == null) {
-                throw new IOException("Resource not found: " + resourceName);
-            }
-            try (BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream, "UTF-8"))) {
-                StringBuilder stringBuilder = new StringBuilder();
-                String line;
-                while ((line = reader.readLine()) != null) {
-                    stringBuilder.append(line).append("\n");
-                }
-                return stringBuilder.toString();
-            }
-        }
-    }
-
-    /**
-     * Writes a html template from resources.
+     * Extracts a usage entry of the package
+     * and adds it to the package usage.
      *
-     * @param filename
-     * @param outputFilePath
-     * @throws IOException
-     */
-    private static void writeTemplateToFile(String filename, String outputFilePath) throws IOException {
-        String templateContent = loadTemplate(filename);
-        try (BufferedWriter writer = new BufferedWriter(new FileWriter(outputFilePath, true))) {
-            writer.write(templateContent);
-        }
-    }
-
-
-    /**
-     * Extracts and adds the usage of a package to its
-     * corresponding dependency.
-     *
-     * @param line
+     * @param html         content of the package page
+     * @param start        start offset of the cell
+     * @param end          end offset of the cell
      * @param entryIndex
-     * @param matchedDep
      * @param packageUsage
      */
-    private static void extractUsage(String line, int entryIndex, ProjectDependency matchedDep, DependencyUsage packageUsage) {
+    private static void extractUsage(String html, int start, int end, int entryIndex, DependencyUsage packageUsage) {
         switch (entryIndex) {
             case 1:
                 // Missed and Covered instructions
-                long[] instrUsage = extractBranchNInstrUsage(line);
-                matchedDep.dependencyUsage.addMissedInstructions(instrUsage[0]);
-                matchedDep.dependencyUsage.addTotalInstructions(instrUsage[1]);
+                long[] instrUsage = parseFraction(html, start, end);
                 packageUsage.addMissedInstructions(instrUsage[0]);
                 packageUsage.addTotalInstructions(instrUsage[1]);
                 break;
@@ -462,9 +728,7 @@ public class HtmlAugmenter {
                 break;
             case 3:
                 // Missed and Covered Branches
-                long[] branchUsage = extractBranchNInstrUsage(line);
-                matchedDep.dependencyUsage.addMissedBranches(branchUsage[0]);
-                matchedDep.dependencyUsage.addTotalBranches(branchUsage[1]);
+                long[] branchUsage = parseFraction(html, start, end);
                 packageUsage.addMissedBranches(branchUsage[0]);
                 packageUsage.addTotalBranches(branchUsage[1]);
                 break;
@@ -473,302 +737,93 @@ public class HtmlAugmenter {
                 break;
             case 5:
                 // Missed cyclomatic complexity
-                matchedDep.dependencyUsage.addMissedCyclomaticComplexity(extractUsageNumber(line));
-                packageUsage.addMissedCyclomaticComplexity(extractUsageNumber(line));
+                packageUsage.addMissedCyclomaticComplexity(parseNumber(html, start, end));
                 break;
             case 6:
                 // Covered cyclomatic complexity
-                matchedDep.dependencyUsage.addCyclomaticComplexity(extractUsageNumber(line));
-                packageUsage.addCyclomaticComplexity(extractUsageNumber(line));
+                packageUsage.addCyclomaticComplexity(parseNumber(html, start, end));
                 break;
             case 7:
                 // Missed Lines
-                matchedDep.dependencyUsage.addMissedLines(extractUsageNumber(line));
-                packageUsage.addMissedLines(extractUsageNumber(line));
+                packageUsage.addMissedLines(parseNumber(html, start, end));
                 break;
             case 8:
                 // Covered Lines
-                matchedDep.dependencyUsage.addTotalLines(extractUsageNumber(line));
-                packageUsage.addTotalLines(extractUsageNumber(line));
+                packageUsage.addTotalLines(parseNumber(html, start, end));
                 break;
             case 9:
                 // Missed Methods
-                matchedDep.dependencyUsage.addMissedMethods(extractUsageNumber(line));
-                packageUsage.addMissedMethods(extractUsageNumber(line));
+                packageUsage.addMissedMethods(parseNumber(html, start, end));
                 break;
             case 10:
                 // Covered Methods
-                matchedDep.dependencyUsage.addTotalMethods(extractUsageNumber(line));
-                packageUsage.addTotalMethods(extractUsageNumber(line));
+                packageUsage.addTotalMethods(parseNumber(html, start, end));
                 break;
             case 11:
                 // Missed Classes
-                matchedDep.dependencyUsage.addMissedClasses(extractUsageNumber(line));
-                packageUsage.addMissedClasses(extractUsageNumber(line));
+                packageUsage.addMissedClasses(parseNumber(html, start, end));
                 break;
             case 12:
                 // Covered Classes
-                matchedDep.dependencyUsage.addTotalClasses(extractUsageNumber(line));
-                packageUsage.addTotalClasses(extractUsageNumber(line));
+                packageUsage.addTotalClasses(parseNumber(html, start, end));
                 break;
             default:
-                System.out.println("Could not extract usage of line: " + line);
+                System.out.println("Could not extract usage of cell: " + html.substring(start, end));
         }
     }
 
 
     /**
-     * Extracts the usage of all but the instructions/branches from
-     * the jacoco report.
-     *
-     * @param input
-     * @return long
-     */
-    private static long extractUsageNumber(String input) {
-        // Define a regex pattern to match the number within <td> tags
-        Pattern pattern = Pattern.compile("<td[^>]*>(\\d+(?:,\\d+)*)</td>");
-        Matcher matcher = pattern.matcher(input);
-
-        if (matcher.find()) {
-            String numberStr = matcher.group(1); // Extract the matched number string
-            // Remove commas and parse the string as Long
-            try {
-                return Long.parseLong(numberStr.replace(",", ""));
-            } catch (NumberFormatException e) {
-                System.out.println("Error parsing number: " + e.getMessage());
-                return 0L;
-            }
-        } else {
-            System.out.println("No match found for extracting number from <td> tag.");
-            return 0L;
-        }
-    }
-
-    /**
-     * Extracts the usage of instructions/branches from
-     * the jacoco report.
-     *
-     * @param input
-     * @return
-     */
-    private static long[] extractBranchNInstrUsage(String input) {
-        // Define regex pattern to match the numbers inside <td> tags
-        Pattern pattern = Pattern.compile("<td[^>]*>(\\d+(?:,\\d+)*)\\s+of\\s+(\\d+(?:,\\d+)*)</td>");
-        Matcher matcher = pattern.matcher(input);
-
-        long[] numbers = new long[2];
-        int index = 0;
-
-        if (matcher.find()) {
-            for (int i = 1; i <= 2; i++) {
-                String numberStr = matcher.group(i); // Extract the matched number string
-                // Remove commas and parse the string as Long
-                try {
-                    numbers[index] = Long.parseLong(numberStr.replace(",", ""));
-                } catch (NumberFormatException e) {
-                    System.out.println("Error parsing number: " + e.getMessage());
-                    numbers[index] = 0L;
-                }
-                index++;
-            }
-        }
-        if (index == 1) {
-            numbers[1] = 0L;
-        }
-
-        return numbers;
-    }
-
-    /**
-     * Reads the jacoco report and extracts its usage.
+     * Reads the package page of the jacoco report
+     * and extracts the usage of the package from
+     * the total row in its footer.
      *
      * @param inputFilePath
-     * @param matchedDep
-     * @param packageName
-     * @throws IOException
-     */
-    private static void extractAndAddPackageTotal(String inputFilePath, ProjectDependency matchedDep, String packageName) throws IOException {
-        try {
-            // Read the HTML file
-            File inputFile = new File(inputFilePath);
-            Document doc = Jsoup.parse(inputFile, "UTF-8");
-
-            String formattedHtml = doc.outerHtml();
-
-            // Write the formatted HTML back to the original file, overwriting its previous content
-            org.apache.commons.io.FileUtils.writeStringToFile(inputFile, formattedHtml, "UTF-8");
-        } catch (IOException e) {
-            System.err.println("Error: " + e.getMessage());
-            e.printStackTrace();
-        }
-
-        try (BufferedReader br = new BufferedReader(new FileReader(inputFilePath))) {
-
-            String line;
-
-            // Flag to indicate if we are inside the <tbody> tag
-            boolean insideTbody = false;
-
-            // Iterate through the input HTML file
-            while ((line = br.readLine()) != null) {
-                // Check if we are inside the <tbody> tag
-                if (line.contains("<tfoot>")) {
-                    insideTbody = true;
-                    line = br.readLine();
-                }
-                // Check if we are inside a <tr> element
-                if (insideTbody && line.contains("<tr>")) {
-                    line = br.readLine();
-                    if (line != null) {
-                        br.mark(100000);
-                        int lineCount = 0;
-                        while ((line = br.readLine()) != null) {
-                            if (line.contains("</tr>")) {
-                                break;
-                            }
-                            lineCount++;
-                        }
-                        br.reset();
-                        int entryIndex = 1;
-                        DependencyUsage packageUsage = new DependencyUsage();
-                        while ((line = br.readLine()) != null) {
-                            //trContent.append(line).append("\n");
-                            if (line.contains("</tr>")) {
-                                break; // Stop processing when encountering </tr>
-                            }
-                            if (entryIndex > 0 && matchedDep.getId() != null) {
-                                if(lineCount < 12 && entryIndex == 7){
-                                    entryIndex = 9;
-                                }
-                                extractUsage(line, entryIndex, matchedDep, packageUsage);
-                            }
-                            entryIndex++;
-                        }
-                        matchedDep.packageUsageMap.put(packageName, packageUsage);
-                        break;
-                    }
-                }
-            }
-        }
-    }
-
-
-    private static void writeModifiedTemplateToFile(String filename, String outputFilePath, String dependencyName) throws IOException {
-        String templateContent = loadTemplateWithReplacement(filename, dependencyName);
-        try (BufferedWriter writer = new BufferedWriter(new FileWriter(outputFilePath, true))) {
-            writer.write(templateContent);
-        }
-    }
-
-
-    public static void writeHTMLStringToFile(String outputFilePath, String inputString) throws IOException {
-        try (BufferedWriter writer = new BufferedWriter(new FileWriter(outputFilePath, true))) {
-            writer.write(inputString);
-        }
-    }
-
-    /**
-     * Writes the total usage to the html report.
-     *
-     * @param outputFilePath
-     * @param inputString
+     * @return DependencyUsage
      * @throws IOException
      */
-    private static void writeHTMLTotalToFile(String outputFilePath, String inputString) throws IOException {
-        // Create a temporary file to store the modified content
-        File tempFile = new File(outputFilePath + ".temp");
-        BufferedReader reader = null;
-        BufferedWriter writer = null;
-
-        try {
-            reader = new BufferedReader(new FileReader(outputFilePath));
-            writer = new BufferedWriter(new FileWriter(tempFile));
-
-            String line;
-            boolean foundMarker = false;
-
-            // Read lines from the original file and write them to the temporary file
-            while ((line = reader.readLine()) != null) {
-                // If the marker is found, insert the input string
-                if (line.contains("REPLACEWITHTOTAL") && !foundMarker) {
-                    writer.write(inputString);
-                    writer.newLine();
-                    foundMarker = true; // Set the flag to true after inserting the input string
-                } else {
-                    // Write the line to the temporary file only if it doesn't contain the marker
-                    writer.write(line);
-                    writer.newLine();
-                }
-            }
-
-            // If the marker was not found, and inputString was not inserted, insert it at the end of the file
-            if (!foundMarker) {
-                writer.write(inputString);
-                writer.newLine();
-            }
-        } finally {
-            // Close the reader and writer
-            if (reader != null) {
-                reader.close();
-            }
-            if (writer != null) {
-                writer.close();
+    private static DependencyUsage extractPackageTotal(String inputFilePath) throws IOException {
+        DependencyUsage packageUsage = new DependencyUsage();
+        String html = new String(Files.readAllBytes(Paths.get(inputFilePath)), StandardCharsets.UTF_8);
+        // Start and end offsets of the footer cells, read in place
+        int[] cells = parseFooterCells(html);
+        // The first cell is the "Total" label
+        int lineCount = cells.length / 2 - 1;
+        int entryIndex = 1;
+        for (int i = 2; i < cells.length; i += 2) {
+            // Without debug information there are no line columns
+            if (lineCount < 12 && entryIndex == 7) {
+                entryIndex = 9;
             }
+            extractUsage(html, cells[i], cells[i + 1], entryIndex, packageUsage);
+            entryIndex++;
         }
-
-        // Delete the original file
-        File originalFile = new File(outputFilePath);
-        originalFile.delete();
-
-        // Rename the temporary file to the original file
-        tempFile.renameTo(originalFile);
+        return packageUsage;
     }
 
-    private static String loadTemplateWithReplacement(String resourceName, String dependencyName) throws IOException {
-        try (InputStream inputStream = HtmlAugmenter.class.getClassLoader().getResourceAsStream(resourceName)) {
-            if (inputStream == null) {
-                throw new IOException("Resource not found: " + resourceName);
-            }
-            if (resourceName.equals("depOverviewTemplateStart.html")) {
-                try (BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream, "UTF-8"))) {
-                    StringBuilder stringBuilder = new StringBuilder();
-                    String line;
-                    while ((line = reader.readLine()) != null) {
-                        line = line.replace("dependency.name", dependencyName);
-                        stringBuilder.append(line).append("\n");
-                    }
-                    return stringBuilder.toString();
-                }
-            } else {
-                try (BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream, "UTF-8"))) {
-                    StringBuilder stringBuilder = new StringBuilder();
-                    String line;
-                    while ((line = reader.readLine()) != null) {
-                        line = line.replace("pathtodependencyindex", dependencyName + "/index.html");
-                        line = line.replace("dependency.name", dependencyName);
-                        stringBuilder.append(line).append("\n");
-                    }
-                    return stringBuilder.toString();
-                }
-            }
-        }
-    }
 
-    private static void createReportSummary() {
-        String outputFile = getJactReportPath() + "jactReportSummary.md";
+    private void createReportSummary() {
+        String outputFile = this.jactReportPath + "jactReportSummary.md";
 
         // Currently missing a complete total: Project + Deps
+        DecimalFormat percentageFormat = DependencyUsage.createPercentageFormat();
         try (BufferedWriter writer = new BufferedWriter(new FileWriter(outputFile))) {
-            writer.write(thisProject.dependencyUsage.usageToMarkdown("PROJECT COVERAGE") + "  \n");
+            thisProject.dependencyUsage.appendUsageMarkdown(writer, "PROJECT COVERAGE", percentageFormat);
+            writer.write("  \n");
             writer.write("----------------------------------------------------------------  \n");
             writer.write("### **NUMBER OF DEPENDENCIES:** " + "  \n");
             writer.write("- **#DIRECT:** " + nrDirectDeps + "  \n");
             writer.write("- **#INDIRECT:** " + nrIndirectDeps + "  \n");
-            writer.write(summaryCompileScopeDepUsage.usageToMarkdown("COMPILE-SCOPE COVERAGE") + "  \n");
-            writer.write(summaryDirectDepUsage.usageToMarkdown("DIRECT DEPENDENCY COVERAGE") + "  \n");
-            writer.write(summaryIndirectDepUsage.usageToMarkdown("INDIRECT DEPENDENCY COVERAGE") + "  \n");
-            writer.write(summaryTotalDepUsage.usageToMarkdown("TOTAL DEPENDENCY COVERAGE _[Direct + Indirect]_") + "  \n");
-            writer.write(summaryTotalUsage.usageToMarkdown("TOTAL COVERAGE _[Project + Dependencies]_") + "  \n");
+            summaryCompileScopeDepUsage.appendUsageMarkdown(writer, "COMPILE-SCOPE COVERAGE", percentageFormat);
+            writer.write("  \n");
+            summaryDirectDepUsage.appendUsageMarkdown(writer, "DIRECT DEPENDENCY COVERAGE", percentageFormat);
+            writer.write("  \n");
+            summaryIndirectDepUsage.appendUsageMarkdown(writer, "INDIRECT DEPENDENCY COVERAGE", percentageFormat);
+            writer.write("  \n");
+            summaryTotalDepUsage.appendUsageMarkdown(writer, "TOTAL DEPENDENCY COVERAGE _[Direct + Indirect]_", percentageFormat);
+            writer.write("  \n");
+            summaryTotalUsage.appendUsageMarkdown(writer, "TOTAL COVERAGE _[Project + Dependencies]_", percentageFormat);
+            writer.write("  \n");
             writer.write("----------------------------------------------------------------  \n");
             // MULTIPLE
             writer.write("## MULTIPLE:  \n");
@@ -778,17 +833,19 @@ public class HtmlAugmenter {
             writer.write("### **NUMBER OF DEPENDENCIES:** " + "  \n");
             writer.write("- **#DIRECT:** " + nrDirectDeps + "  \n");
             writer.write("- **#MULTIPLE INDIRECT:** " + nrMultipleIndirectDeps + "  \n");
-            writer.write(summaryMultipleIndirectDepUsage.usageToMarkdown("MULTIPLE INDIRECT COVERAGE") + "  \n");
-            writer.write(summaryMultipleTotalDepUsage.usageToMarkdown("MULTIPLE TOTAL DEPENDENCY COVERAGE _[Direct + Multiple Indirect]_") + "  \n");
-            writer.write(summaryMultipleTotalUsage.usageToMarkdown("MULTIPLE TOTAL COVERAGE _[Project + Dependencies]_"));
+            summaryMultipleIndirectDepUsage.appendUsageMarkdown(writer, "MULTIPLE INDIRECT COVERAGE", percentageFormat);
+            writer.write("  \n");
+            summaryMultipleTotalDepUsage.appendUsageMarkdown(writer, "MULTIPLE TOTAL DEPENDENCY COVERAGE _[Direct + Multiple Indirect]_", percentageFormat);
+            writer.write("  \n");
+            summaryMultipleTotalUsage.appendUsageMarkdown(writer, "MULTIPLE TOTAL COVERAGE _[Project + Dependencies]_", percentageFormat);
         } catch (IOException e) {
             e.printStackTrace();
         }
     }
 
 
-    private static void writeDepToCSV(Map<String, ProjectDependency> dependenciesMap){
-        String outputFile = getJactReportPath() + "DependencyUsageSummary.csv";
+    private void writeDepToCSV(Map<String, ProjectDependency> dependenciesMap){
+        String outputFile = this.jactReportPath + "DependencyUsageSummary.csv";
 
         try (BufferedWriter writer = new BufferedWriter(new FileWriter(outputFile))) {
             writer.write("DEPENDENCY_ID,DIRECT_DEPENDENCY,INSTRUCTION_COVERED,INSTRUCTION_TOTAL," +
@@ -0,0 +1,217 @@
+package jact.core;
+
+import java.util.Arrays;
+
+/**
+ * Parses the numbers of the table cells of the JaCoCo HTML
+ * report, e.g. `<td class="ctr1" id="f2">1,234</td>` or
+ * `<td class="bar">12 of 1,234</td>`. The line is scanned
+ * once, without regular expressions or substrings.
+ */
+public class HtmlCellParser {
+    private static final String CELL_START = "<td";
+    private static final String CELL_END = "</td>";
+    private static final String FOOTER_START = "<tfoot>";
+    private static final String ROW_START = "<tr>";
+    private static final String ROW_END = "</tr>";
+
+    // Returned by the scanners when there is no number at the position
+    private static final int NO_NUMBER = -1;
+
+    private HtmlCellParser() {
+    }
+
+    /**
+     * Parses the first cell of the line that only contains a number.
+     *
+     * @param line
+     * @return the number or 0 if there is no such cell
+     */
+    public static long parseNumber(String line) {
+        return parseNumber(line, 0, line.length());
+    }
+
+    /**
+     * Parses the first cell between the offsets that only contains
+     * a number, e.g. a cell found by parseFooterCells.
+     *
+     * @param html
+     * @param start offset to start scanning at
+     * @param end   offset the cell has to end before
+     * @return the number or 0 if there is no such cell
+     */
+    public static long parseNumber(String html, int start, int end) {
+        int cellStart = html.indexOf(CELL_START, start);
+        while (cellStart >= 0 && cellStart < end) {
+            int contentStart = html.indexOf('>', cellStart + CELL_START.length());
+            if (contentStart < 0 || contentStart >= end) {
+                break;
+            }
+            contentStart++;
+            int numberEnd = scanNumber(html, contentStart);
+            if (numberEnd >= 0 && endsCell(html, numberEnd, end)) {
+                return numberValue(html, contentStart, numberEnd);
+            }
+            cellStart = html.indexOf(CELL_START, cellStart + 1);
+        }
+        return 0L;
+    }
+
+    /**
+     * Parses the first cell of the line with the form `X of Y`.
+     *
+     * @param line
+     * @return the numbers X and Y or two zeros if there is no such cell
+     */
+    public static long[] parseFraction(String line) {
+        return parseFraction(line, 0, line.length());
+    }
+
+    /**
+     * Parses the first cell between the offsets with the form
+     * `X of Y`, e.g. a cell found by parseFooterCells.
+     *
+     * @param html
+     * @param start offset to start scanning at
+     * @param end   offset the cell has to end before
+     * @return the numbers X and Y or two zeros if there is no such cell
+     */
+    public static long[] parseFraction(String html, int start, int end) {
+        long[] numbers = new long[2];
+        int cellStart = html.indexOf(CELL_START, start);
+        while (cellStart >= 0 && cellStart < end) {
+            int contentStart = html.indexOf('>', cellStart + CELL_START.length());
+            if (contentStart < 0 || contentStart >= end) {
+                break;
+            }
+            contentStart++;
+            int firstEnd = scanNumber(html, contentStart);
+            int secondStart = firstEnd >= 0 ? scanSeparator(html, firstEnd) : NO_NUMBER;
+            int secondEnd = secondStart >= 0 ? scanNumber(html, secondStart) : NO_NUMBER;
+            if (secondEnd >= 0 && endsCell(html, secondEnd, end)) {
+                numbers[0] = numberValue(html, contentStart, firstEnd);
+                numbers[1] = numberValue(html, secondStart, secondEnd);
+                return numbers;
+            }
+            cellStart = html.indexOf(CELL_START, cellStart + 1);
+        }
+        return numbers;
+    }
+
+    /**
+     * Finds the cells of the first row in the footer of a page.
+     * The page is scanned as it was written by JaCoCo, without
+     * parsing or copying it; the cells are read in place with
+     * the offset variants of parseNumber and parseFraction.
+     *
+     * @param html content of the page
+     * @return the start and end offsets of the cells including their tags,
+     *         one pair per cell, empty if there is no footer row
+     */
+    public static int[] parseFooterCells(String html) {
+        int footerStart = html.indexOf(FOOTER_START);
+        int rowStart = footerStart >= 0 ? html.indexOf(ROW_START, footerStart) : -1;
+        int rowEnd = rowStart >= 0 ? html.indexOf(ROW_END, rowStart) : -1;
+        if (rowEnd < 0) {
+            return new int[0];
+        }
+        int[] bounds = new int[16];
+        int count = 0;
+        int cellStart = html.indexOf(CELL_START, rowStart);
+        while (cellStart >= 0 && cellStart < rowEnd) {
+            int cellEnd = html.indexOf(CELL_END, cellStart);
+            if (cellEnd < 0 || cellEnd > rowEnd) {
+                break;
+            }
+            cellEnd += CELL_END.length();
+            if (count == bounds.length) {
+                bounds = Arrays.copyOf(bounds, count * 2);
+            }
+            bounds[count++] = cellStart;
+            bounds[count++] = cellEnd;
+            cellStart = html.indexOf(CELL_START, cellEnd);
+        }
+        return Arrays.copyOf(bounds, count);
+    }
+
+    private static boolean endsCell(String html, int index, int end) {
+        return index + CELL_END.length() <= end && html.startsWith(CELL_END, index);
+    }
+
+    /**
+     * Scans digits with optional thousands separators (`1,234`).
+     *
+     * @return the end of the number or NO_NUMBER
+     */
+    private static int scanNumber(String line, int start) {
+        int index = start;
+        if (!isDigit(line, index)) {
+            return NO_NUMBER;
+        }
+        while (true) {
+            while (isDigit(line, index)) {
+                index++;
+            }
+            // A separator only belongs to the number when digits follow
+            if (index < line.length() && line.charAt(index) == ',' && isDigit(line, index + 1)) {
+                index++;
+            } else {
+                return index;
+            }
+        }
+    }
+
+    /**
+     * Scans the ` of ` between the numbers of a fraction.
+     *
+     * @return the start of the second number or NO_NUMBER
+     */
+    private static int scanSeparator(String line, int start) {
+        int index = start;
+        while (isWhitespace(line, index)) {
+            index++;
+        }
+        if (index == start || !line.startsWith("of", index)) {
+            return NO_NUMBER;
+        }
+        int afterOf = index + 2;
+        index = afterOf;
+        while (isWhitespace(line, index)) {
+            index++;
+        }
+        return index == afterOf ? NO_NUMBER : index;
+    }
+
+    private static long numberValue(String line, int start, int end) {
+        long value = 0L;
+        for (int i = start; i < end; i++) {
+            char c = line.charAt(i);
+            if (c == ',') {
+                continue;
+            }
+            int digit = c - '0';
+            if (value > (Long.MAX_VALUE - digit) / 10) {
+                System.out.println("Error parsing number: " + line.substring(start, end));
+                return 0L;
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+
+    private static boolean isDigit(String line, int index) {
+        if (index >= line.length()) {
+            return false;
+        }
+        char c = line.charAt(index);
+        return c >= '0' && c <= '9';
+    }
+
+    private static boolean isWhitespace(String line, int index) {
+        if (index >= line.length()) {
+            return false;
+        }
+        char c = line.charAt(index);
+        return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+    }
+}
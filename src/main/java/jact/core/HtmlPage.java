@@ -0,0 +1,101 @@
+package jact.core;
+
+import jact.depUtils.DependencyUsage;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
+/**
+ * A page of the HTML report that is built in memory and
+ * written to its file at once. The rows are collected
+ * between the start and end template, the total row is
+ * rendered at the marker of the start template, so it
+ * can be set at any time.
+ */
+public class HtmlPage {
+    private final HtmlTemplate startTemplate;
+    private final HtmlTemplate endTemplate;
+    private final String dependencyName;
+    private final String resourcesPath;
+    private final StringBuilder rows = new StringBuilder();
+    private String total;
+
+    /**
+     * @param startTemplate
+     * @param endTemplate
+     * @param dependencyName replaces the dependency placeholders of
+     *                       the templates, null keeps them as they are
+     */
+    public HtmlPage(HtmlTemplate startTemplate, HtmlTemplate endTemplate, String dependencyName) {
+        this(startTemplate, endTemplate, dependencyName, "jacoco-resources/");
+    }
+
+    /**
+     * @param startTemplate
+     * @param endTemplate
+     * @param dependencyName replaces the dependency placeholders of
+     *                       the templates, null keeps them as they are
+     * @param resourcesPath  path of the jacoco-resources used by the
+     *                       rows, relative to the page
+     */
+    public HtmlPage(HtmlTemplate startTemplate, HtmlTemplate endTemplate, String dependencyName,
+                    String resourcesPath) {
+        this.startTemplate = startTemplate;
+        this.endTemplate = endTemplate;
+        this.dependencyName = dependencyName;
+        this.resourcesPath = resourcesPath;
+    }
+
+    /**
+     * Appends the usage as a row of the page.
+     *
+     * @param usage
+     * @param name          name (and link target) of the entry
+     * @param total         usage the bars are relative to
+     * @param isPackage     entry of a package instead of a dependency
+     * @param indirectEntry entry on an indirect dependencies page
+     * @return HtmlPage
+     * @throws IOException
+     */
+    public HtmlPage appendUsage(DependencyUsage usage, String name, DependencyUsage total,
+                                boolean isPackage, boolean indirectEntry) throws IOException {
+        usage.appendUsageHTML(this.rows, name, total, isPackage, indirectEntry, this.resourcesPath);
+        return this;
+    }
+
+    public HtmlPage setTotal(String totalHtml) {
+        this.total = totalHtml;
+        return this;
+    }
+
+    /**
+     * Renders the page to the output. Without a total marker
+     * in the start template the total is added at the end.
+     *
+     * @param out
+     * @throws IOException
+     */
+    private void renderTo(Appendable out) throws IOException {
+        this.startTemplate.renderTo(out, this.dependencyName, this.total);
+        out.append(this.rows);
+        this.endTemplate.renderTo(out, this.dependencyName, null);
+        if (this.total != null && !this.startTemplate.hasTotalMarker()) {
+            out.append(this.total).append('\n');
+        }
+    }
+
+    /**
+     * Writes the page, replacing an existing file.
+     *
+     * @param outputFilePath
+     * @throws IOException
+     */
+    public void write(String outputFilePath) throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(Paths.get(outputFilePath), StandardCharsets.UTF_8)) {
+            renderTo(writer);
+        }
+    }
+}
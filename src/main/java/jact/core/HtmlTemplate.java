@@ -0,0 +1,181 @@
+package jact.core;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A compiled HTML template of the report. The template is
+ * loaded from the resources once and split into literal and
+ * placeholder segments, which are streamed to the output
+ * when a page is rendered.
+ */
+public class HtmlTemplate {
+    private static final String DEPENDENCY_NAME = "dependency.name";
+    private static final String DEPENDENCY_INDEX = "pathtodependencyindex";
+    private static final String TOTAL_MARKER = "REPLACEWITHTOTAL";
+
+    // The templates are immutable resources of the plugin
+    private static final Map<String, HtmlTemplate> TEMPLATES = new ConcurrentHashMap<>();
+
+    private final List<Segment> segments;
+    private final boolean hasTotalMarker;
+
+    private HtmlTemplate(List<Segment> segments) {
+        this.segments = segments;
+        boolean totalMarker = false;
+        for (Segment segment : segments) {
+            totalMarker |= segment.type == SegmentType.TOTAL;
+        }
+        this.hasTotalMarker = totalMarker;
+    }
+
+    /**
+     * Gets the compiled template of a resource, loading
+     * and compiling it on first use.
+     *
+     * @param resourceName
+     * @return HtmlTemplate
+     * @throws IOException
+     */
+    public static HtmlTemplate get(String resourceName) throws IOException {
+        HtmlTemplate template = TEMPLATES.get(resourceName);
+        if (template == null) {
+            template = compile(loadResource(resourceName));
+            TEMPLATES.putIfAbsent(resourceName, template);
+        }
+        return template;
+    }
+
+    /**
+     * Compiles the content of a template. A line containing the
+     * total marker is replaced as a whole by the total row, the
+     * dependency placeholders are replaced within their line.
+     *
+     * @param content
+     * @return HtmlTemplate
+     */
+    public static HtmlTemplate compile(String content) {
+        List<Segment> segments = new ArrayList<>();
+        StringBuilder literal = new StringBuilder();
+        int lineStart = 0;
+        while (lineStart < content.length()) {
+            int lineEnd = content.indexOf('\n', lineStart);
+            lineEnd = lineEnd < 0 ? content.length() : lineEnd + 1;
+            String line = content.substring(lineStart, lineEnd);
+            if (line.contains(TOTAL_MARKER)) {
+                addLiteral(segments, literal);
+                segments.add(new Segment(SegmentType.TOTAL, line));
+            } else {
+                compileLine(line, segments, literal);
+            }
+            lineStart = lineEnd;
+        }
+        addLiteral(segments, literal);
+        return new HtmlTemplate(segments);
+    }
+
+    private static void compileLine(String line, List<Segment> segments, StringBuilder literal) {
+        int index = 0;
+        while (true) {
+            int nameIndex = line.indexOf(DEPENDENCY_NAME, index);
+            int indexIndex = line.indexOf(DEPENDENCY_INDEX, index);
+            if (nameIndex < 0 && indexIndex < 0) {
+                literal.append(line, index, line.length());
+                return;
+            }
+            boolean isName = indexIndex < 0 || (nameIndex >= 0 && nameIndex < indexIndex);
+            int placeholderIndex = isName ? nameIndex : indexIndex;
+            String placeholder = isName ? DEPENDENCY_NAME : DEPENDENCY_INDEX;
+            literal.append(line, index, placeholderIndex);
+            addLiteral(segments, literal);
+            segments.add(new Segment(isName ? SegmentType.DEPENDENCY_NAME : SegmentType.DEPENDENCY_INDEX,
+                    placeholder));
+            index = placeholderIndex + placeholder.length();
+        }
+    }
+
+    private static void addLiteral(List<Segment> segments, StringBuilder literal) {
+        if (literal.length() > 0) {
+            segments.add(new Segment(SegmentType.LITERAL, literal.toString()));
+            literal.setLength(0);
+        }
+    }
+
+    public boolean hasTotalMarker() {
+        return this.hasTotalMarker;
+    }
+
+    /**
+     * Renders the template to the output.
+     *
+     * @param out
+     * @param dependencyName replaces the dependency placeholders,
+     *                       null keeps them as they are
+     * @param total          replaces the total marker line,
+     *                       null keeps it as it is
+     * @throws IOException
+     */
+    public void renderTo(Appendable out, String dependencyName, String total) throws IOException {
+        for (Segment segment : this.segments) {
+            switch (segment.type) {
+                case DEPENDENCY_NAME:
+                    out.append(dependencyName != null ? dependencyName : segment.text);
+                    break;
+                case DEPENDENCY_INDEX:
+                    if (dependencyName != null) {
+                        out.append(dependencyName).append("/index.html");
+                    } else {
+                        out.append(segment.text);
+                    }
+                    break;
+                case TOTAL:
+                    if (total != null) {
+                        out.append(total).append('\n');
+                    } else {
+                        out.append(segment.text);
+                    }
+                    break;
+                default:
+                    out.append(segment.text);
+            }
+        }
+    }
+
+    private static String loadResource(String resourceName) throws IOException {
+        try (InputStream inputStream = HtmlTemplate.class.getClassLoader().getResourceAsStream(resourceName)) {
+            if (inputStream == null) {
+                throw new IOException("Resource not found: " + resourceName);
+            }
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8))) {
+                StringBuilder stringBuilder = new StringBuilder();
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    stringBuilder.append(line).append("\n");
+                }
+                return stringBuilder.toString();
+            }
+        }
+    }
+
+    private enum SegmentType {
+        LITERAL, DEPENDENCY_NAME, DEPENDENCY_INDEX, TOTAL
+    }
+
+    private static class Segment {
+        private final SegmentType type;
+        // The literal text or the original text of the placeholder
+        private final String text;
+
+        private Segment(SegmentType type, String text) {
+            this.type = type;
+            this.text = text;
+        }
+    }
+}
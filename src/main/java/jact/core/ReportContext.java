@@ -0,0 +1,74 @@
+package jact.core;
+
+import jact.depUtils.DependencyUsage;
+import jact.depUtils.PackageToDependencyResolver;
+import jact.depUtils.ProjectDependency;
+
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Everything a single report execution works on: the report
+ * location, the project and its resolved dependencies. Each
+ * Mojo execution creates its own context, so several modules
+ * can be reported at the same time (e.g. with `mvn -T`).
+ */
+public class ReportContext {
+    private final String reportPath;
+    private final String projId;
+    private final Map<String, Set<String>> projPackagesAndClassMap;
+    private final Map<String, ProjectDependency> dependenciesMap;
+    private final Map<String, DependencyUsage> indirectUsageMap;
+    private final PackageToDependencyResolver resolver;
+    private final int threadCount;
+
+    /**
+     * @param reportPath              the JACT report directory (ending with a separator)
+     * @param projId                  id of the reported project
+     * @param projPackagesAndClassMap packages (dot separated) and classes of the project
+     * @param dependenciesMap         the project dependencies by id
+     * @param indirectUsageMap        indirect usage of dependencies with children
+     * @param resolver                resolves packages to the dependencies
+     * @param threadCount             number of threads used for processing packages
+     */
+    public ReportContext(String reportPath, String projId, Map<String, Set<String>> projPackagesAndClassMap,
+                         Map<String, ProjectDependency> dependenciesMap,
+                         Map<String, DependencyUsage> indirectUsageMap,
+                         PackageToDependencyResolver resolver, int threadCount) {
+        this.reportPath = reportPath;
+        this.projId = projId;
+        this.projPackagesAndClassMap = projPackagesAndClassMap;
+        this.dependenciesMap = dependenciesMap;
+        this.indirectUsageMap = indirectUsageMap;
+        this.resolver = resolver;
+        this.threadCount = threadCount;
+    }
+
+    public String getReportPath() {
+        return this.reportPath;
+    }
+
+    public String getProjId() {
+        return this.projId;
+    }
+
+    public Map<String, Set<String>> getProjPackagesAndClassMap() {
+        return this.projPackagesAndClassMap;
+    }
+
+    public Map<String, ProjectDependency> getDependenciesMap() {
+        return this.dependenciesMap;
+    }
+
+    public Map<String, DependencyUsage> getIndirectUsageMap() {
+        return this.indirectUsageMap;
+    }
+
+    public PackageToDependencyResolver getResolver() {
+        return this.resolver;
+    }
+
+    public int getThreadCount() {
+        return this.threadCount;
+    }
+}
@@ -0,0 +1,152 @@
+package jact.core;
+
+import jact.depUtils.CounterType;
+import jact.depUtils.DependencyUsage;
+import jact.depUtils.ProjectDependency;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import static jact.depUtils.ProjectDependency.depToDirName;
+
+/**
+ * Fingerprints of the dependency pages of a generated HTML
+ * report, stored next to the report. A fingerprint covers
+ * everything the pages of a dependency are written from (its
+ * packages, counters and indirect dependencies), so pages with
+ * an unchanged fingerprint can be kept on the next run.
+ */
+public class ReportState {
+    public static final String STATE_FILE_NAME = "jact-report-state.txt";
+    // Changing the report layout invalidates all stored fingerprints
+    private static final String STATE_HEADER = "#jact-report-state:1";
+    private static final char SEPARATOR = '\t';
+
+    // Dependency id -> fingerprint
+    private final Map<String, String> fingerprints = new TreeMap<>();
+
+    /**
+     * Reads the state of the previous report. A missing or
+     * invalid state file results in an empty state.
+     *
+     * @param reportPath the JACT report directory (ending with a separator)
+     * @return ReportState
+     */
+    public static ReportState read(String reportPath) {
+        ReportState state = new ReportState();
+        File stateFile = new File(reportPath + STATE_FILE_NAME);
+        if (!stateFile.isFile()) {
+            return state;
+        }
+        try (BufferedReader reader = Files.newBufferedReader(stateFile.toPath(), StandardCharsets.UTF_8)) {
+            String header = reader.readLine();
+            if (header == null || !header.equals(STATE_HEADER)) {
+                return state;
+            }
+            String line;
+            while ((line = reader.readLine()) != null) {
+                int separatorIndex = line.indexOf(SEPARATOR);
+                if (separatorIndex > 0) {
+                    state.fingerprints.put(line.substring(0, separatorIndex), line.substring(separatorIndex + 1));
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("Could not read the report state: " + stateFile.getPath());
+            state.fingerprints.clear();
+        }
+        return state;
+    }
+
+    /**
+     * Writes the state to the report directory.
+     *
+     * @param reportPath the JACT report directory (ending with a separator)
+     */
+    public void write(String reportPath) {
+        File stateFile = new File(reportPath + STATE_FILE_NAME);
+        try (BufferedWriter writer = Files.newBufferedWriter(stateFile.toPath(), StandardCharsets.UTF_8)) {
+            writer.write(STATE_HEADER);
+            writer.newLine();
+            for (Map.Entry<String, String> entry : this.fingerprints.entrySet()) {
+                writer.write(entry.getKey() + SEPARATOR + entry.getValue());
+                writer.newLine();
+            }
+        } catch (IOException e) {
+            System.err.println("Could not write the report state: " + stateFile.getPath());
+        }
+    }
+
+    public String getFingerprint(String depId) {
+        return this.fingerprints.get(depId);
+    }
+
+    public void setFingerprint(String depId, String fingerprint) {
+        this.fingerprints.put(depId, fingerprint);
+    }
+
+    public Set<String> getDependencyIds() {
+        return this.fingerprints.keySet();
+    }
+
+    /**
+     * Calculates the fingerprint of the pages of a dependency.
+     * Must be called once all usages have been calculated.
+     *
+     * @param dependency
+     * @param indirectUsage indirect usage of the dependency or null if it has none
+     * @return String
+     */
+    public static String fingerprint(ProjectDependency dependency, DependencyUsage indirectUsage) {
+        StringBuilder sb = new StringBuilder();
+        sb.append(depToDirName(dependency)).append('\n');
+        appendUsage(sb, dependency.dependencyUsage);
+        // Sorted, the package order of the map is not stable
+        for (Map.Entry<String, DependencyUsage> entry : new TreeMap<>(dependency.packageUsageMap).entrySet()) {
+            sb.append("package:").append(entry.getKey()).append('\n');
+            appendUsage(sb, entry.getValue());
+        }
+        if (indirectUsage != null) {
+            sb.append("indirect\n");
+            appendUsage(sb, indirectUsage);
+            Map<String, ProjectDependency> children = new TreeMap<>();
+            for (ProjectDependency child : dependency.getChildDeps().values()) {
+                children.put(depToDirName(child), child);
+            }
+            for (Map.Entry<String, ProjectDependency> entry : children.entrySet()) {
+                sb.append("child:").append(entry.getKey()).append('\n');
+                appendUsage(sb, entry.getValue().dependencyUsage);
+            }
+        }
+        return sha256(sb.toString());
+    }
+
+    private static void appendUsage(StringBuilder sb, DependencyUsage usage) {
+        for (CounterType type : CounterType.values()) {
+            sb.append(usage.getMissed(type)).append(',').append(usage.getTotal(type)).append(',');
+        }
+        sb.append('\n');
+    }
+
+    private static String sha256(String input) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(input.getBytes(StandardCharsets.UTF_8));
+            StringBuilder hex = new StringBuilder(digest.length * 2);
+            for (byte b : digest) {
+                hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            // Every Java platform supports SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -1,525 +1,515 @@
 package jact.core;
 
+import jact.depUtils.CounterType;
 import jact.depUtils.DependencyUsage;
 import jact.depUtils.ProjectDependency;
 import jact.utils.CommandExecutor;
-import org.w3c.dom.*;
-import org.xml.sax.SAXException;
-import org.xml.sax.helpers.DefaultHandler;
-
-import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
-import javax.xml.parsers.ParserConfigurationException;
-import javax.xml.transform.OutputKeys;
-import javax.xml.transform.Transformer;
-import javax.xml.transform.TransformerFactory;
-import javax.xml.transform.dom.DOMSource;
-import javax.xml.transform.stream.StreamResult;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
 import java.io.*;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Set;
 
-import static jact.depUtils.PackageToDependencyResolver.packageToDependency;
-import static jact.plugin.AbstractReportMojo.getJactReportPath;
 import static jact.utils.FileSystemUtils.removeFile;
 
 /**
  * Creates the XML version of the JACT Report
  */
 public class XmlAugmenter {
-    private static DependencyUsage dependencyUsage;
-    private static DependencyUsage projectUsage;
-    private static ProjectDependency thisProject;
-    private static DependencyUsage totalUsage;
-
-    private static final String FINALREPORTPATH = getJactReportPath() + "jact_report.xml";
-
-    private static String xmlDtd = "<!DOCTYPE report PUBLIC \"-//JACOCO//DTD Report 1.1//EN\" \"report.dtd\">";
-    private static String xmlReportTag = "<report name=\"JACT Coverage Report (Generated with JaCoCo)\">";
-    private static String sessionInfo;
-
-    private static Map<String, String> fileNameToPackageMap = new HashMap<>();
-
-
-    public static void generateXmlReport(Map<String, ProjectDependency> dependenciesMap,
-                                         Map<String, Set<String>> projPackagesAndClassMap,
-                                         String localRepoPath, String projId) {
-        dependencyUsage = new DependencyUsage();
-        projectUsage = new DependencyUsage();
-        thisProject = new ProjectDependency();
-        totalUsage = new DependencyUsage();
-
-        Map<String, Document> packageReports =
-                extractUsageAndGeneratePackageReports(dependenciesMap, projPackagesAndClassMap, localRepoPath, projId);
-        writeCompleteReport(dependenciesMap, packageReports);
+    private final ReportContext context;
+    private final DependencyUsage dependencyUsage = new DependencyUsage();
+    private final DependencyUsage projectUsage = new DependencyUsage();
+    private final ProjectDependency thisProject = new ProjectDependency();
+    private final DependencyUsage totalUsage = new DependencyUsage();
+
+    private final String finalReportPath;
+    private final String packageReportsPath;
+    private final String spoolPath;
+
+    private static final String INDENT = "    ";
+    // Indentation of packages in the final report
+    private static final String DEPENDENCY_PACKAGE_INDENT = INDENT + INDENT + INDENT;
+    private static final String PROJECT_PACKAGE_INDENT = INDENT + INDENT;
+    private static final String PACKAGE_REPORT_HEADER = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<report>\n";
+
+    private static final String xmlDeclaration = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n";
+    private static final String xmlDtd = "<!DOCTYPE report PUBLIC \"-//JACOCO//DTD Report 1.1//EN\" \"report.dtd\">";
+    private static final String xmlReportTag = "<report name=\"JACT Coverage Report (Generated with JaCoCo)\">";
+    private String sessionInfo;
+
+    // Project/dependency id -> packages (slash separated) written to its group and the
+    // position of their serialized body in the spool file: {offset, length}.
+    // Kept here so that the dependency objects can be shared with the HTML report.
+    private final Map<String, Map<String, long[]>> groupPackages = new HashMap<>();
+    private long spoolOffset = 0L;
+
+    public XmlAugmenter(ReportContext context) {
+        this.context = context;
+        this.finalReportPath = context.getReportPath() + "jact_report.xml";
+        this.packageReportsPath = context.getReportPath() + "jact_xml_package_reports/";
+        this.spoolPath = context.getReportPath() + "jact_xml_packages.tmp";
     }
 
-
     /**
-     * Extracts the header information form the jacoco XML report.
+     * Generates the entire JACT XML report.
      *
-     * @param xmlFilePath
-     * @return String
+     * @param keepPackageReports also write the individual package reports
+     * @throws IOException if the jacoco report cannot be read or the report cannot be written
      */
-    private static String extractXmlHeader(String xmlFilePath) {
-
-        StringBuilder sessionInfo = new StringBuilder();
-
+    public void generateXmlReport(boolean keepPackageReports) throws IOException {
         try {
-            // Create a DocumentBuilder
-            DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
-            factory.setFeature("http://apache.org/xml/features/nonvalidating/load-external-dtd", false);
-            DocumentBuilder builder = factory.newDocumentBuilder();
-
-            // Parse the XML file
-            Document doc = builder.parse(new File(xmlFilePath));
-
-            // Get the root element
-            Element root = doc.getDocumentElement();
-
-            // Find the sessioninfo node
-            NodeList sessionInfoList = root.getElementsByTagName("sessioninfo");
-            if (sessionInfoList.getLength() > 0) {
-                Node sessionInfoNode = sessionInfoList.item(0);
-                sessionInfo.append(nodeToString(sessionInfoNode));
-            }
-        } catch (Exception e) {
-            System.err.println("Error reading XML file: " + e.getMessage());
-            e.printStackTrace();
+            extractPackageUsage(keepPackageReports);
+            writeCompleteReport(this.context.getDependenciesMap());
+        } finally {
+            removeFile(this.spoolPath);
         }
-
-        return sessionInfo.toString();
     }
 
-    // Helper method to convert a Node to String
-    private static String nodeToString(Node node) {
-        StringBuilder stringBuilder = new StringBuilder();
-        stringBuilder.append("<").append(node.getNodeName());
-
-        // Append attributes
-        if (node.hasAttributes()) {
-            NamedNodeMap attributes = node.getAttributes();
-            for (int i = 0; i < attributes.getLength(); i++) {
-                Node attr = attributes.item(i);
-                stringBuilder.append(" ").append(attr.getNodeName()).append("=\"").append(attr.getNodeValue()).append("\"");
-            }
-        }
-        stringBuilder.append("/>");
-        return stringBuilder.toString();
-    }
 
     /**
-     * Creates individual XML reports for each package
-     * in the jacoco XML report.
+     * Streams the jacoco XML report once. The session info
+     * is extracted, every package is resolved to the project
+     * or its dependency when its start tag is read, and its
+     * counters are captured while the package body is written
+     * to a spool file at its final indentation. The spool is
+     * later copied into the final report grouped by dependency.
+     * Packages split across several dependencies are resolved
+     * per class, see `spoolSplitPackage`.
+     * Individual package reports are only written on request.
      *
-     * @param dependenciesMap
-     * @param projPackagesAndClassMap
-     * @param localRepoPath
-     * @param projId
+     * @param keepPackageReports
+     * @throws IOException
      */
-    private static Map<String, Document> extractUsageAndGeneratePackageReports(Map<String, ProjectDependency> dependenciesMap,
-                                                                               Map<String, Set<String>> projPackagesAndClassMap,
-                                                                               String localRepoPath, String projId) {
-        thisProject.setId(projId);
-        Map<String, Document> packageReports = new HashMap<>();
-        try {
-            // Load Jacoco XML report
-            File xmlFile = new File(getJactReportPath() + "jacoco_report.xml");
-            sessionInfo = extractXmlHeader(getJactReportPath() + "jacoco_report.xml");
-
-            // Disable DTD validation
-            System.setProperty("javax.xml.parsers.DocumentBuilderFactory", "com.sun.org.apache.xerces.internal.jaxp.DocumentBuilderFactoryImpl");
-            DocumentBuilderFactory dbFactory = DocumentBuilderFactory.newInstance();
-            dbFactory.setFeature("http://apache.org/xml/features/nonvalidating/load-external-dtd", false);
-
-            DocumentBuilder dBuilder = dbFactory.newDocumentBuilder();
-            Document doc = dBuilder.parse(xmlFile);
-            doc.getDocumentElement().normalize();
-
-            // Format and overwrite the XML file
-            formatXml(xmlFile, doc, false);
-
-            // Group coverage data by package name
-            NodeList nodeList = doc.getElementsByTagName("package");
-            for (int i = 0; i < nodeList.getLength(); i++) {
-                Element packageElement = (Element) nodeList.item(i);
-                String packageName = packageElement.getAttribute("name");
-                Document packageReport = createPackageReport(packageElement);
-                packageReports.put(packageName, packageReport);
-            }
-            // Write separate XML reports for each package in the current directory
-            for (Map.Entry<String, Document> entry : packageReports.entrySet()) {
-                String packageName = entry.getKey();
-                Document packageReport = entry.getValue();
-                String filename = packageName.replace("/", "-") + ".xml"; // Use package name for filename
-                // Add to th
-                fileNameToPackageMap.put(filename, packageName);
-                writeXML(packageReport, getJactReportPath() + "jact_xml_package_reports/" + filename);
+    private void extractPackageUsage(boolean keepPackageReports) throws IOException {
+        Map<String, Set<String>> projPackagesAndClassMap = this.context.getProjPackagesAndClassMap();
+        thisProject.setId(this.context.getProjId());
+        StringBuilder sessionInfoBuilder = new StringBuilder();
+        if (keepPackageReports) {
+            File packageReportDir = new File(this.packageReportsPath);
+            if (!packageReportDir.exists() && !packageReportDir.mkdirs()) {
+                throw new IllegalStateException("Couldn't create directory: " + packageReportDir);
             }
-
-            //System.out.println("Separate XML reports created for each package in the current directory.");
-            readAndExtractPackageUsage(getJactReportPath() + "jact_xml_package_reports/", dependenciesMap, projPackagesAndClassMap, localRepoPath);
-        } catch (Exception e) {
-            e.printStackTrace();
         }
-        return packageReports;
-    }
 
-    /**
-     * Reads the individual package reports and
-     * extracts the usage of each dependency or
-     * project code.
-     *
-     * @param pathToReport
-     * @param dependenciesMap
-     * @param projPackagesAndClassMap
-     * @param localRepoPath
-     */
-    private static void readAndExtractPackageUsage(String pathToReport,
-                                                   Map<String, ProjectDependency> dependenciesMap,
-                                                   Map<String, Set<String>> projPackagesAndClassMap,
-                                                   String localRepoPath) {
-        File reportDir = new File(pathToReport);
-        // Check if the directory exists
-        if (reportDir.exists() && reportDir.isDirectory()) {
-            // List all files in the directory
-            File[] files = reportDir.listFiles();
-            if (files != null) {
-                // Iterate through each file
-                for (File file : files) {
-                    String packageName = fileNameToPackageMap.get(file.getName()).replaceAll("/", ".");
-                    if (projPackagesAndClassMap.containsKey(packageName)) {
-                        extractCounterValues(getJactReportPath() + "jact_xml_package_reports/" + file.getName(),
-                                thisProject, projectUsage, file.getName());
+        // Load Jacoco XML report without resolving its DTD
+        XMLInputFactory inputFactory = XMLInputFactory.newInstance();
+        inputFactory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        inputFactory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+
+        try (InputStream inputStream = new BufferedInputStream(
+                new FileInputStream(this.context.getReportPath() + "jacoco_report.xml"));
+             OutputStream spool = new BufferedOutputStream(new FileOutputStream(this.spoolPath))) {
+            XMLStreamReader reader = inputFactory.createXMLStreamReader(inputStream);
+            // Holds one serialized package at a time
+            StringBuilder packageBody = new StringBuilder();
+            while (reader.hasNext()) {
+                if (reader.next() != XMLStreamConstants.START_ELEMENT) {
+                    continue;
+                }
+                String elementName = reader.getLocalName();
+                if (elementName.equals("sessioninfo")) {
+                    sessionInfoBuilder.append(INDENT);
+                    writeElement(reader, sessionInfoBuilder, INDENT, null);
+                } else if (elementName.equals("package")) {
+                    String packageName = reader.getAttributeValue(null, "name");
+                    ProjectDependency matchedDep;
+                    DependencyUsage groupUsage;
+                    String indent;
+                    if (projPackagesAndClassMap.containsKey(packageName.replace('/', '.'))) {
+                        matchedDep = thisProject;
+                        groupUsage = projectUsage;
+                        indent = PROJECT_PACKAGE_INDENT;
+                    } else if (this.context.getResolver().isSplitPackage(packageName)) {
+                        spoolSplitPackage(reader, packageName, spool, keepPackageReports);
+                        continue;
                     } else {
                         // Match the package to its dependency
-                        ProjectDependency matchedDep = packageToDependency(packageName, dependenciesMap, localRepoPath);
-                        if (matchedDep.getId() != null) {
-                            extractCounterValues(getJactReportPath() + "jact_xml_package_reports/" + file.getName(),
-                                    matchedDep, dependencyUsage, file.getName());
-                        }else{
-                            removeFile(getJactReportPath() + "jact_xml_package_reports/" + file.getName());
-                        }
+                        matchedDep = this.context.getResolver().packageToDependency(packageName.replace('/', '.'));
+                        groupUsage = dependencyUsage;
+                        indent = DEPENDENCY_PACKAGE_INDENT;
+                    }
+                    if (matchedDep.getId() == null) {
+                        skipElement(reader);
+                        continue;
+                    }
+
+                    DependencyUsage packageUsage = new DependencyUsage();
+                    packageBody.setLength(0);
+                    packageBody.append(indent);
+                    boolean hasCounters = writeElement(reader, packageBody, indent, packageUsage);
+                    // No usage, such packages are not included in the html version.
+                    if (!hasCounters) {
+                        continue;
+                    }
+                    groupUsage.addAll(packageUsage);
+                    byte[] bodyBytes = spoolPackage(matchedDep, packageName, packageBody, spool);
+                    if (keepPackageReports) {
+                        writePackageReport(packageName, bodyBytes);
                     }
                 }
-            } else {
-                System.out.println("No files found in the directory.");
             }
-        } else {
-            System.out.println("Directory does not exist or is not a directory.");
+            reader.close();
+        } catch (XMLStreamException e) {
+            throw new IOException("Could not read the jacoco XML report", e);
         }
+        sessionInfo = sessionInfoBuilder.toString();
         totalUsage.addAll(projectUsage);
         totalUsage.addAll(dependencyUsage);
     }
 
     /**
-     * Writes the complete XML report from the individual
-     * project XML reports. The report is separated by
-     * Dependency/Project packages easily identifying
-     * the source of packages where totals for the
-     * all dependencies, project and the overall
-     * total is written in each section.
+     * Appends a serialized package body to the spool
+     * file and records it for the group of its dependency.
      *
-     * @param dependenciesMap
-     * @param packageReports
+     * @param dependency
+     * @param packageName
+     * @param packageBody
+     * @param spool
+     * @return the serialized body
+     * @throws IOException
      */
-    private static void writeCompleteReport(Map<String, ProjectDependency> dependenciesMap, Map<String, Document> packageReports) {
-        try {
-            CommandExecutor.copyDtdFile("report.dtd", "./target/jact-report");
-        } catch (IOException e) {
-            throw new RuntimeException(e);
-        }
-
-        String depOpeningTag = "<group name=\"Dependencies\">";
-        String projOpeningTag = "<group name=\"" + "Project Packages" + "\">";
-        String groupClosingTag = "</group>";
-        File finalReport = new File(FINALREPORTPATH);
-
-        try (FileWriter writer = new FileWriter(finalReport)) {
-            writer.write(xmlDtd);
-            writer.write(xmlReportTag);
-            writer.write(sessionInfo);
-            writer.write(depOpeningTag);
-
-            for (ProjectDependency pd : dependenciesMap.values()) {
-                String openingTag = "<group name=\"" + pd.getId() + "\">";
-                writer.write(openingTag.trim());
-
-                writePackageReportsFromMap(pd, writer);
+    private byte[] spoolPackage(ProjectDependency dependency, String packageName, CharSequence packageBody,
+                                OutputStream spool) throws IOException {
+        byte[] bodyBytes = packageBody.toString().getBytes(StandardCharsets.UTF_8);
+        spool.write(bodyBytes);
+        groupPackages.computeIfAbsent(dependency.getId(), k -> new LinkedHashMap<>())
+                .put(packageName, new long[]{spoolOffset, bodyBytes.length});
+        spoolOffset += bodyBytes.length;
+        return bodyBytes;
+    }
 
-                writer.write(groupClosingTag);
+    /**
+     * Spools a package whose classes are provided by several
+     * dependencies (e.g. `javax/annotation`). Every class is
+     * resolved to the dependency providing it, and each of these
+     * dependencies gets a package element with its classes, their
+     * source files and counters summed the way JaCoCo does: from
+     * the source files and the classes without a source file.
+     * The reader is positioned on the package start tag.
+     *
+     * @param reader
+     * @param packageName
+     * @param spool
+     * @param keepPackageReports
+     * @throws XMLStreamException
+     * @throws IOException
+     */
+    private void spoolSplitPackage(XMLStreamReader reader, String packageName, OutputStream spool,
+                                   boolean keepPackageReports) throws XMLStreamException, IOException {
+        String childIndent = DEPENDENCY_PACKAGE_INDENT + INDENT;
+        // Ordered by the first class of each dependency
+        Map<ProjectDependency, StringBuilder> partBodies = new LinkedHashMap<>();
+        Map<ProjectDependency, DependencyUsage> partUsages = new HashMap<>();
+        // Source file name -> dependency of its classes (classes precede the source files)
+        Map<String, ProjectDependency> sourceFileDeps = new HashMap<>();
+
+        int event = reader.next();
+        while (event != XMLStreamConstants.END_ELEMENT) {
+            if (event != XMLStreamConstants.START_ELEMENT) {
+                event = reader.next();
+                continue;
             }
-
-            // Write total dependency usage
-            writer.write(dependencyUsage.totalUsageToXML());
-            writer.write(groupClosingTag);
-
-            // Write the project packages
-            writer.write(projOpeningTag);
-
-            writePackageReportsFromMap(thisProject, writer);
-
-            writer.write(projectUsage.totalUsageToXML());
-            writer.write(groupClosingTag);
-
-            // Write overall total here
-            writer.write(totalUsage.totalUsageToXML());
-
-            writer.write("</report>");
-
-        } catch (IOException e) {
-            System.err.println("Error writing final report: " + e.getMessage());
-            e.printStackTrace();
+            String elementName = reader.getLocalName();
+            ProjectDependency partDep = null;
+            boolean countsForPackage = false;
+            if (elementName.equals("class")) {
+                partDep = this.context.getResolver().classToDependency(reader.getAttributeValue(null, "name"));
+                String sourceFileName = reader.getAttributeValue(null, "sourcefilename");
+                if (sourceFileName == null) {
+                    countsForPackage = true;
+                } else if (partDep.getId() != null) {
+                    sourceFileDeps.putIfAbsent(sourceFileName, partDep);
+                }
+            } else if (elementName.equals("sourcefile")) {
+                partDep = sourceFileDeps.get(reader.getAttributeValue(null, "name"));
+                countsForPackage = true;
+            }
+            // Package counters are recalculated for every part
+            if (partDep == null || partDep.getId() == null) {
+                skipElement(reader);
+            } else {
+                StringBuilder partBody = partBodies.computeIfAbsent(partDep, k -> new StringBuilder());
+                DependencyUsage elementUsage = new DependencyUsage();
+                partBody.append(childIndent);
+                writeElement(reader, partBody, childIndent, elementUsage);
+                if (countsForPackage) {
+                    partUsages.computeIfAbsent(partDep, k -> new DependencyUsage()).addAll(elementUsage);
+                }
+            }
+            event = reader.next();
         }
 
-        try {
-            String dtdPath = "./target/jact-report/report.dtd";
-
-            // Set system property to specify the DTD location
-            System.setProperty("javax.xml.parsers.DocumentBuilderFactory", "com.sun.org.apache.xerces.internal.jaxp.DocumentBuilderFactoryImpl");
-            System.setProperty("javax.xml.parsers.SAXParserFactory", "com.sun.org.apache.xerces.internal.jaxp.SAXParserFactoryImpl");
-            System.setProperty("org.xml.sax.driver", "com.sun.org.apache.xerces.internal.parsers.SAXParser");
-            System.setProperty("javax.xml.validation.SchemaFactory:http://www.w3.org/2001/XMLSchema", dtdPath);
-
-            DocumentBuilderFactory dbFactory = DocumentBuilderFactory.newInstance();
-            dbFactory.setNamespaceAware(true);
-            dbFactory.setValidating(true);
-
-            DocumentBuilder dBuilder = dbFactory.newDocumentBuilder();
-
-            // Set ErrorHandler
-            dBuilder.setErrorHandler(new DefaultHandler());
-
-            Document formattedDoc = dBuilder.parse(finalReport);
-            formattedDoc.getDocumentElement().normalize();
-
-            // Format and overwrite the XML file
-            formatXml(finalReport, formattedDoc, true);
-        } catch (ParserConfigurationException | IOException | SAXException e) {
-            throw new RuntimeException(e);
-        } catch (Exception e) {
-            throw new RuntimeException(e);
+        ByteArrayOutputStream packageReport = new ByteArrayOutputStream();
+        StringBuilder packageBody = new StringBuilder();
+        for (Map.Entry<ProjectDependency, StringBuilder> part : partBodies.entrySet()) {
+            DependencyUsage partUsage = partUsages.get(part.getKey());
+            // No usage, such packages are not included in the html version.
+            if (partUsage == null) {
+                continue;
+            }
+            packageBody.setLength(0);
+            packageBody.append(DEPENDENCY_PACKAGE_INDENT).append("<package name=\"");
+            escapeXml(packageName, packageBody);
+            packageBody.append("\">\n").append(part.getValue());
+            appendCounters(packageBody, childIndent, partUsage);
+            packageBody.append(DEPENDENCY_PACKAGE_INDENT).append("</package>\n");
+            dependencyUsage.addAll(partUsage);
+            packageReport.write(spoolPackage(part.getKey(), packageName, packageBody, spool));
+        }
+        if (keepPackageReports && packageReport.size() > 0) {
+            writePackageReport(packageName, packageReport.toByteArray());
         }
-        System.out.println("Final report has been written to: " + finalReport.getAbsolutePath());
     }
 
-
     /**
-     * Writes the dependency packages
-     * to the complete XML report.
+     * Appends the counter elements of a usage in the
+     * format of JaCoCo, which omits empty counters.
      *
-     * @param dependency
-     * @param writer
+     * @param out
+     * @param indent
+     * @param usage
      */
-    private static void writePackageReportsFromMap(ProjectDependency dependency, FileWriter writer) {
-        for (Map.Entry<String, DependencyUsage> entry : dependency.packageUsageMap.entrySet()) {
-            File packageFile = new File(getJactReportPath() + "jact_xml_package_reports/" + entry.getKey());
-            try (BufferedReader reader = new BufferedReader(new FileReader(packageFile))) {
-                String line;
-                boolean firstLineSkipped = false;
-                boolean reportTagSkipped = false;
-
-                while ((line = reader.readLine()) != null) {
-                    if (!firstLineSkipped && line.startsWith("<?xml")) {
-                        // Skip the first line
-                        firstLineSkipped = true;
-                        continue;
-                    }
-                    if (!reportTagSkipped && line.trim().startsWith("<report")) {
-                        // Skip the report tag and its closing tag
-                        reportTagSkipped = true;
-                        continue;
-                    }
-                    if (line.trim().equals("</report>")) {
-                        // Skip the closing tag
-                        continue;
-                    }
-                    writer.write(line.trim());
-                }
-            } catch (IOException e) {
-                System.err.println("Error reading package file: " + e.getMessage());
-                e.printStackTrace();
+    private static void appendCounters(StringBuilder out, String indent, DependencyUsage usage) {
+        for (CounterType type : CounterType.values()) {
+            long total = usage.getTotal(type);
+            if (total > 0) {
+                long missed = usage.getMissed(type);
+                out.append(indent).append("<counter type=\"").append(type.name()).append("\" missed=\"")
+                        .append(missed).append("\" covered=\"").append(total - missed).append("\"/>\n");
             }
         }
     }
 
+    /**
+     * Writes an individual XML report for a package.
+     *
+     * @param packageName
+     * @param bodyBytes
+     * @throws IOException
+     */
+    private void writePackageReport(String packageName, byte[] bodyBytes) throws IOException {
+        String filename = packageName.replace("/", "-") + ".xml"; // Use package name for filename
+        try (OutputStream out = new FileOutputStream(this.packageReportsPath + filename)) {
+            out.write(PACKAGE_REPORT_HEADER.getBytes(StandardCharsets.UTF_8));
+            out.write(bodyBytes);
+            out.write("</report>\n".getBytes(StandardCharsets.UTF_8));
+        }
+    }
 
     /**
-     * Extracts the total values from the jacoco XML report.
+     * Writes the element the reader is positioned on, including
+     * all of its children, with one element per line. JaCoCo
+     * reports only contain attributes, so text is skipped.
+     * The reader is left on the end tag of the element.
+     * Counters that are direct children of the element are
+     * added to the given usage (if any).
      *
-     * @param inputFilePath
-     * @param matchedDep
+     * @param reader
+     * @param out
+     * @param indent indentation of the element itself
      * @param usage
-     * @param packageFileName
+     * @return boolean true if a direct counter child was found
+     * @throws XMLStreamException
+     * @throws IOException
      */
-    private static void extractCounterValues(String inputFilePath, ProjectDependency matchedDep, DependencyUsage usage, String packageFileName) {
-        try {
-            // Parse the XML file
-            File inputFile = new File(inputFilePath);
-            DocumentBuilderFactory dbFactory = DocumentBuilderFactory.newInstance();
-            dbFactory.setFeature("http://apache.org/xml/features/nonvalidating/load-external-dtd", false);
-            DocumentBuilder dBuilder = dbFactory.newDocumentBuilder();
-            Document doc = dBuilder.parse(inputFile);
-            doc.getDocumentElement().normalize();
-
-            // Get the <package> nodes
-            NodeList packageNodes = doc.getElementsByTagName("package");
-            for (int i = 0; i < packageNodes.getLength(); i++) {
-                Element packageElement = (Element) packageNodes.item(i);
-                // Get the child nodes of the package
-                NodeList childNodes = packageElement.getChildNodes();
-                for (int j = 0; j < childNodes.getLength(); j++) {
-                    if (childNodes.item(j).getNodeType() == Node.ELEMENT_NODE) {
-                        Element childElement = (Element) childNodes.item(j);
-                        // Check if the child element is a counter
-                        if (childElement.getNodeName().equals("counter")) {
-                            // Extract the attributes and call a function with the values
-                            String type = childElement.getAttribute("type");
-                            long missed = Long.parseLong(childElement.getAttribute("missed"));
-                            long covered = Long.parseLong(childElement.getAttribute("covered"));
-                            DependencyUsage packageUsage = new DependencyUsage();
-                            processCounterValues(type, missed, covered, matchedDep, packageUsage);
-                            matchedDep.dependencyUsage.addAll(packageUsage);
-                            usage.addAll(packageUsage);
-                            matchedDep.packageUsageMap.put(packageFileName, packageUsage);
-                        }
-                    }
+    private static boolean writeElement(XMLStreamReader reader, Appendable out, String indent, DependencyUsage usage)
+            throws XMLStreamException, IOException {
+        int depth = 0;
+        boolean openTag = false;
+        boolean foundCounter = false;
+        while (true) {
+            int event = reader.getEventType();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                if (openTag) {
+                    out.append(">\n");
                 }
+                if (depth > 0) {
+                    appendIndent(out, indent, depth);
+                }
+                String elementName = reader.getLocalName();
+                out.append('<').append(elementName);
+                for (int i = 0; i < reader.getAttributeCount(); i++) {
+                    out.append(' ').append(reader.getAttributeLocalName(i)).append("=\"");
+                    escapeXml(reader.getAttributeValue(i), out);
+                    out.append('"');
+                }
+                if (depth == 1 && usage != null && elementName.equals("counter")) {
+                    processCounterValues(reader.getAttributeValue(null, "type"),
+                            Long.parseLong(reader.getAttributeValue(null, "missed")),
+                            Long.parseLong(reader.getAttributeValue(null, "covered")), usage);
+                    foundCounter = true;
+                }
+                openTag = true;
+                depth++;
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                depth--;
+                if (openTag) {
+                    out.append("/>\n");
+                    openTag = false;
+                } else {
+                    appendIndent(out, indent, depth);
+                    out.append("</").append(reader.getLocalName()).append(">\n");
+                }
+                if (depth == 0) {
+                    return foundCounter;
+                }
+            }
+            reader.next();
+        }
+    }
+
+    /**
+     * Skips the element the reader is positioned on
+     * and leaves the reader on its end tag.
+     *
+     * @param reader
+     * @throws XMLStreamException
+     */
+    private static void skipElement(XMLStreamReader reader) throws XMLStreamException {
+        int depth = 1;
+        while (depth > 0) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                depth++;
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                depth--;
             }
-        } catch (Exception e) {
-            System.err.println("Error: " + e.getMessage());
-            e.printStackTrace();
         }
-        // No usage, such packages are not included in the html version.
-        if (!matchedDep.packageUsageMap.containsKey(packageFileName)) {
-            removeFile(getJactReportPath() + "jact_xml_package_reports/" + packageFileName);
+    }
+
+    private static void appendIndent(Appendable out, String indent, int depth) throws IOException {
+        out.append(indent);
+        for (int i = 0; i < depth; i++) {
+            out.append(INDENT);
         }
     }
 
-    private static void processCounterValues(String type, long missed, long covered, ProjectDependency matchedDep, DependencyUsage packageUsage) {
-        // Add the total here!
-        switch (type) {
-            case "INSTRUCTION":
-                packageUsage.addMissedInstructions(missed);
-                packageUsage.addTotalInstructions(missed + covered);
-                break;
-            case "BRANCH":
-                packageUsage.addMissedBranches(missed);
-                packageUsage.addTotalBranches(missed + covered);
-                break;
-            case "LINE":
-                packageUsage.addMissedLines(missed);
-                packageUsage.addTotalLines(missed + covered);
-                break;
-            case "COMPLEXITY":
-                packageUsage.addMissedCyclomaticComplexity(missed);
-                packageUsage.addCyclomaticComplexity(missed + covered);
-                break;
-            case "METHOD":
-                packageUsage.addMissedMethods(missed);
-                packageUsage.addTotalMethods(missed + covered);
-                break;
-            case "CLASS":
-                packageUsage.addMissedClasses(missed);
-                packageUsage.addTotalClasses(missed + covered);
-                break;
-            default:
-                System.out.println("Could not match usage type with parsed type: " + type);
+    private static void escapeXml(String value, Appendable out) throws IOException {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '&':
+                    out.append("&amp;");
+                    break;
+                case '<':
+                    out.append("&lt;");
+                    break;
+                case '>':
+                    out.append("&gt;");
+                    break;
+                case '"':
+                    out.append("&quot;");
+                    break;
+                default:
+                    out.append(c);
+            }
         }
     }
 
     /**
-     * Creates the individual XML package reports
-     * from the jacoco XML report.
+     * Writes the complete XML report from the spooled
+     * package bodies. The report is separated by
+     * Dependency/Project packages easily identifying
+     * the source of packages where totals for the
+     * all dependencies, project and the overall
+     * total is written in each section. A report that
+     * could not be written completely is removed.
      *
-     * @param packageElement
-     * @return
-     * @throws Exception
+     * @param dependenciesMap
+     * @throws IOException
      */
-    private static Document createPackageReport(Element packageElement) throws Exception {
-        DocumentBuilderFactory dbFactory = DocumentBuilderFactory.newInstance();
-        dbFactory.setFeature("http://apache.org/xml/features/nonvalidating/load-external-dtd", false); // Disable DTD validation
-        DocumentBuilder dBuilder = dbFactory.newDocumentBuilder();
-        Document doc = dBuilder.newDocument();
-        Element rootElement = doc.createElement("report");
-        doc.appendChild(rootElement);
-
-        // Copy package node and its children to the new document
-        Element importedPackage = (Element) doc.importNode(packageElement, true);
-        rootElement.appendChild(importedPackage);
-
-        return doc;
-    }
+    private void writeCompleteReport(Map<String, ProjectDependency> dependenciesMap) throws IOException {
+        CommandExecutor.copyDtdFile("report.dtd", this.context.getReportPath());
+
+        String groupIndent = INDENT + INDENT;
+        String groupClosingTag = "</group>\n";
+        File finalReport = new File(this.finalReportPath);
+
+        try (FileOutputStream out = new FileOutputStream(finalReport);
+             FileChannel spool = new FileInputStream(this.spoolPath).getChannel();
+             Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8))) {
+            writer.write(xmlDeclaration);
+            writer.write(xmlDtd + "\n");
+            writer.write(xmlReportTag + "\n");
+            writer.write(sessionInfo);
+            writer.write(INDENT + "<group name=\"Dependencies\">\n");
+
+            for (ProjectDependency pd : dependenciesMap.values()) {
+                writer.write(groupIndent + "<group name=\"");
+                escapeXml(pd.getId(), writer);
+                writer.write("\">\n");
 
-    private static void writeXML(Document doc, String outputPath) throws Exception {
-        File outputFile = new File(outputPath);
-        File parentDir = outputFile.getParentFile();
+                writePackagesFromSpool(pd, spool, writer, out);
 
-        // Create parent directories if they don't exist
-        if (!parentDir.exists() && !parentDir.mkdirs()) {
-            throw new IllegalStateException("Couldn't create directory: " + parentDir);
-        }
+                writer.write(groupIndent + groupClosingTag);
+            }
 
-        TransformerFactory transformerFactory = TransformerFactory.newInstance();
-        Transformer transformer = transformerFactory.newTransformer();
-        DOMSource source = new DOMSource(doc);
-        StreamResult result = new StreamResult(outputFile);
-        transformer.transform(source, result);
+            // Write total dependency usage
+            dependencyUsage.appendTotalUsageXML(writer, groupIndent);
+            writer.write(INDENT + groupClosingTag);
 
+            // Write the project packages
+            writer.write(INDENT + "<group name=\"Project Packages\">\n");
 
-        // Disable DTD validation
-        System.setProperty("javax.xml.parsers.DocumentBuilderFactory", "com.sun.org.apache.xerces.internal.jaxp.DocumentBuilderFactoryImpl");
-        DocumentBuilderFactory dbFactory = DocumentBuilderFactory.newInstance();
-        dbFactory.setFeature("http://apache.org/xml/features/nonvalidating/load-external-dtd", false);
+            writePackagesFromSpool(thisProject, spool, writer, out);
 
-        DocumentBuilder dBuilder = dbFactory.newDocumentBuilder();
-        Document formattedDoc = dBuilder.parse(outputFile);
-        formattedDoc.getDocumentElement().normalize();
+            projectUsage.appendTotalUsageXML(writer, groupIndent);
+            writer.write(INDENT + groupClosingTag);
+
+            // Write overall total here
+            totalUsage.appendTotalUsageXML(writer, INDENT);
 
-        // Format and overwrite the XML file
-        formatXml(outputFile, formattedDoc, false);
+            writer.write("</report>\n");
+
+        } catch (IOException e) {
+            removeFile(this.finalReportPath);
+            throw e;
+        }
+        System.out.println("Final report has been written to: " + finalReport.getAbsolutePath());
     }
 
+
     /**
-     * Formats the XML to correctly ident each line.
+     * Copies the spooled bodies of the dependency packages
+     * to the complete XML report without decoding them.
      *
-     * @param file
-     * @param doc
-     * @param validateWithDTD
-     * @throws Exception
+     * @param dependency
+     * @param spool
+     * @param writer
+     * @param out the stream underlying the writer
+     * @throws IOException
      */
-    private static void formatXml(File file, Document doc, boolean validateWithDTD) throws Exception {
-        // Create transformer
-        TransformerFactory transformerFactory = TransformerFactory.newInstance();
-        Transformer transformer = transformerFactory.newTransformer();
-
-        // Set indentation properties
-        transformer.setOutputProperty(OutputKeys.INDENT, "yes");
-        transformer.setOutputProperty("{http://xml.apache.org/xslt}indent-amount", "4"); // Indentation size
-
-        // Set standalone="yes" in the XML declaration
-        doc.setXmlStandalone(true);
-
-        // Write the XML declaration with standalone="yes"
-        StringWriter writer = new StringWriter();
-        transformer.transform(new DOMSource(doc), new StreamResult(writer));
-        String xmlString = writer.toString();
-
-        // Add standalone="yes" to the XML declaration if not already present
-        if (!xmlString.contains("standalone=\"yes\"")) {
-            int index = xmlString.indexOf("?>");
-            if (index != -1) {
-                xmlString = xmlString.substring(0, index) + " standalone=\"yes\"" + xmlString.substring(index);
+    private void writePackagesFromSpool(ProjectDependency dependency, FileChannel spool,
+                                               Writer writer, FileOutputStream out) throws IOException {
+        // Everything written so far has to reach the file before the raw copy
+        writer.flush();
+        FileChannel reportChannel = out.getChannel();
+        for (long[] location : groupPackages.getOrDefault(dependency.getId(), Collections.emptyMap()).values()) {
+            long position = location[0];
+            long remaining = location[1];
+            while (remaining > 0) {
+                long transferred = spool.transferTo(position, remaining, reportChannel);
+                position += transferred;
+                remaining -= transferred;
             }
         }
+    }
 
-        // Write the modified XML to the file
-        try (PrintWriter printWriter = new PrintWriter(file)) {
-            printWriter.write(xmlString);
+    private static void processCounterValues(String type, long missed, long covered, DependencyUsage packageUsage) {
+        CounterType counterType = CounterType.fromName(type);
+        if (counterType == null) {
+            System.out.println("Could not match usage type with parsed type: " + type);
+            return;
         }
+        // Add the total here!
+        packageUsage.add(counterType, missed, missed + covered);
     }
 }
-
-
-
@@ -0,0 +1,140 @@
+package jact.depUtils;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Trie of the classes provided by the dependencies, keyed by
+ * the segments of their internal names (`org/example/Foo`).
+ * Every class is attributed to the dependency that provides
+ * it, so packages split across several jars are resolved per
+ * class. A lookup walks one node per name segment, independent
+ * of the number of dependencies.
+ */
+class ClassTrie {
+    private final Node root = new Node();
+
+    /**
+     * Adds a class to the trie. If the class is provided by
+     * several dependencies the first one added is kept.
+     *
+     * @param className  internal name of the class ('/' separated)
+     * @param dependency dependency providing the class
+     */
+    void addClass(String className, ProjectDependency dependency) {
+        Node packageNode = this.root;
+        int segmentStart = 0;
+        int separator = nextSeparator(className, segmentStart);
+        while (separator >= 0) {
+            packageNode = packageNode.child(className.substring(segmentStart, separator));
+            segmentStart = separator + 1;
+            separator = nextSeparator(className, segmentStart);
+        }
+        Node classNode = packageNode.child(className.substring(segmentStart));
+        if (classNode.classDependency == null) {
+            classNode.classDependency = dependency;
+            packageNode.addPackageClass(dependency);
+        }
+    }
+
+    /**
+     * Gets the dependency providing a class.
+     *
+     * @param className internal name of the class ('/' or '.' separated)
+     * @return the dependency or null if no dependency provides the class
+     */
+    ProjectDependency getClassDependency(String className) {
+        Node node = find(className);
+        return node != null ? node.classDependency : null;
+    }
+
+    /**
+     * Gets the dependency providing the classes of a package.
+     * For a package split across several dependencies the one
+     * providing most of its classes is returned.
+     *
+     * @param packageName package name ('/' or '.' separated)
+     * @return the dependency or null if no dependency has classes in the package
+     */
+    ProjectDependency getPackageDependency(String packageName) {
+        Node node = find(packageName);
+        if (node == null || node.packageClassCounts == null) {
+            return null;
+        }
+        ProjectDependency packageDependency = null;
+        int maxCount = 0;
+        // Ordered by insertion, so ties go to the first dependency added
+        for (Map.Entry<ProjectDependency, Integer> entry : node.packageClassCounts.entrySet()) {
+            if (entry.getValue() > maxCount) {
+                packageDependency = entry.getKey();
+                maxCount = entry.getValue();
+            }
+        }
+        return packageDependency;
+    }
+
+    /**
+     * Checks whether the classes of a package are
+     * provided by more than one dependency.
+     *
+     * @param packageName package name ('/' or '.' separated)
+     * @return boolean
+     */
+    boolean isSplitPackage(String packageName) {
+        Node node = find(packageName);
+        return node != null && node.packageClassCounts != null && node.packageClassCounts.size() > 1;
+    }
+
+    private Node find(String name) {
+        Node node = this.root;
+        int segmentStart = 0;
+        while (node != null) {
+            int separator = nextSeparator(name, segmentStart);
+            int segmentEnd = separator >= 0 ? separator : name.length();
+            node = node.children != null ? node.children.get(name.substring(segmentStart, segmentEnd)) : null;
+            if (separator < 0) {
+                return node;
+            }
+            segmentStart = separator + 1;
+        }
+        return null;
+    }
+
+    private static int nextSeparator(String name, int start) {
+        for (int i = start; i < name.length(); i++) {
+            char c = name.charAt(i);
+            if (c == '/' || c == '.') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * A package segment or a class. Packages and classes
+     * share the nodes, e.g. a nested class `Foo$Bar` and a
+     * package `foo` are both children of their package.
+     */
+    private static class Node {
+        private Map<String, Node> children;
+        // Set for class nodes
+        private ProjectDependency classDependency;
+        // Set for package nodes: dependency -> number of classes it provides
+        private Map<ProjectDependency, Integer> packageClassCounts;
+
+        private Node child(String segment) {
+            if (this.children == null) {
+                this.children = new HashMap<>();
+            }
+            return this.children.computeIfAbsent(segment, k -> new Node());
+        }
+
+        private void addPackageClass(ProjectDependency dependency) {
+            if (this.packageClassCounts == null) {
+                this.packageClassCounts = new LinkedHashMap<>(2);
+            }
+            this.packageClassCounts.merge(dependency, 1, Integer::sum);
+        }
+    }
+}
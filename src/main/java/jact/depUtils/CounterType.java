@@ -0,0 +1,30 @@
+package jact.depUtils;
+
+/**
+ * The coverage counters tracked for every dependency,
+ * in the order of the JaCoCo report counters.
+ */
+public enum CounterType {
+    INSTRUCTION, BRANCH, LINE, COMPLEXITY, METHOD, CLASS;
+
+    private static final CounterType[] TYPES = values();
+
+    /**
+     * Gets the counter type of a JaCoCo counter name.
+     *
+     * @param name
+     * @return CounterType or null if the name is unknown
+     */
+    public static CounterType fromName(String name) {
+        for (CounterType type : TYPES) {
+            if (type.name().equals(name)) {
+                return type;
+            }
+        }
+        return null;
+    }
+
+    static CounterType[] types() {
+        return TYPES;
+    }
+}
@@ -1,38 +1,52 @@
 package jact.depUtils;
 
+import java.io.IOException;
 import java.text.DecimalFormat;
+import java.text.DecimalFormatSymbols;
+import java.text.NumberFormat;
+import java.util.Locale;
 
 /**
  * Tracks the usage of a dependency in all the recorded metrics.
  */
 public class DependencyUsage {
-    // Dependency usage, in their entry order
-    private long missedInstructions = 0L;
-    private long totalInstructions = 0L;
-    private long missedBranches = 0L;
-    private long totalBranches = 0L;
-    private long missedCyclomaticComplexity = 0L;
-    private long cyclomaticComplexity = 0L;
-
-    private long missedLines = 0L;
-    private long lines = 0L;
-
-    private long missedMethods = 0L;
-    private long methods = 0L;
+    // Number format of `%,d` in the default locale, looked up once
+    private static final char ZERO_DIGIT;
+    private static final char GROUPING_SEPARATOR;
+    private static final int GROUPING_SIZE;
+
+    static {
+        Locale locale = Locale.getDefault(Locale.Category.FORMAT);
+        DecimalFormatSymbols symbols = DecimalFormatSymbols.getInstance(locale);
+        ZERO_DIGIT = symbols.getZeroDigit();
+        GROUPING_SEPARATOR = symbols.getGroupingSeparator();
+        NumberFormat integerFormat = NumberFormat.getIntegerInstance(locale);
+        if (integerFormat instanceof DecimalFormat && ((DecimalFormat) integerFormat).isGroupingUsed()) {
+            GROUPING_SIZE = ((DecimalFormat) integerFormat).getGroupingSize();
+        } else {
+            GROUPING_SIZE = integerFormat instanceof DecimalFormat ? 0 : 3;
+        }
+    }
 
-    private long missedClasses = 0L;
-    private long classes = 0L;
+    // Missed and total count of every counter type, indexed by missedIndex/totalIndex
+    private final long[] counters = new long[CounterType.types().length * 2];
 
     public static String percentage(long part, long whole) {
-        double percentage = (double) part / whole * 100;
-        long roundedPercentage = (long) Math.floor(percentage);
-        return String.format("%d%%", roundedPercentage);
+        StringBuilder sb = new StringBuilder(4);
+        try {
+            appendPercentage(sb, part, whole);
+        } catch (IOException e) {
+            // A StringBuilder does not throw
+            throw new IllegalStateException(e);
+        }
+        return sb.toString();
     }
 
-    private static String lessRoundedPercentage(long part, long whole) {
+    private static void appendPercentage(Appendable out, long part, long whole) throws IOException {
         double percentage = (double) part / whole * 100;
-        DecimalFormat decimalFormat = new DecimalFormat("#.####"); // Format to four decimal places
-        return decimalFormat.format(percentage) + "%";
+        long roundedPercentage = (long) Math.floor(percentage);
+        appendDigits(out, roundedPercentage, ZERO_DIGIT, 0);
+        out.append('%');
     }
 
     public static int barLength(long part, long whole) {
@@ -41,236 +55,414 @@ public class DependencyUsage {
     }
 
     public void addMissedInstructions(long missedInstr) {
-        this.missedInstructions += missedInstr;
+        this.counters[missedIndex(CounterType.INSTRUCTION)] += missedInstr;
     }
 
     public long getMissedInstructions() {
-        return this.missedInstructions;
+        return this.counters[missedIndex(CounterType.INSTRUCTION)];
     }
 
     public void addTotalInstructions(long instr) {
-        this.totalInstructions += instr;
+        this.counters[totalIndex(CounterType.INSTRUCTION)] += instr;
     }
 
     public long getTotalInstructions() {
-        return this.totalInstructions;
+        return this.counters[totalIndex(CounterType.INSTRUCTION)];
     }
 
     public void addMissedBranches(long missedBranch) {
-        this.missedBranches += missedBranch;
+        this.counters[missedIndex(CounterType.BRANCH)] += missedBranch;
     }
 
     public long getMissedBranches() {
-        return this.missedBranches;
+        return this.counters[missedIndex(CounterType.BRANCH)];
     }
 
     public void addTotalBranches(long branches) {
-        this.totalBranches += branches;
+        this.counters[totalIndex(CounterType.BRANCH)] += branches;
     }
 
     public long getTotalBranches() {
-        return this.totalBranches;
+        return this.counters[totalIndex(CounterType.BRANCH)];
     }
 
     public void addMissedCyclomaticComplexity(long missedCxty) {
-        this.missedCyclomaticComplexity += missedCxty;
+        this.counters[missedIndex(CounterType.COMPLEXITY)] += missedCxty;
     }
 
     public long getMissedCyclomaticComplexity() {
-        return this.missedCyclomaticComplexity;
+        return this.counters[missedIndex(CounterType.COMPLEXITY)];
     }
 
     public void addCyclomaticComplexity(long cxty) {
-        this.cyclomaticComplexity += cxty;
+        this.counters[totalIndex(CounterType.COMPLEXITY)] += cxty;
     }
 
     public long getCyclomaticComplexity() {
-        return this.cyclomaticComplexity;
+        return this.counters[totalIndex(CounterType.COMPLEXITY)];
     }
 
     public void addMissedLines(long mlines) {
-        this.missedLines += mlines;
+        this.counters[missedIndex(CounterType.LINE)] += mlines;
     }
 
     public long getMissedLines() {
-        return this.missedLines;
+        return this.counters[missedIndex(CounterType.LINE)];
     }
 
     public void addTotalLines(long clines) {
-        this.lines += clines;
+        this.counters[totalIndex(CounterType.LINE)] += clines;
     }
 
     public long getTotalLines() {
-        return this.lines;
+        return this.counters[totalIndex(CounterType.LINE)];
     }
 
     public void addMissedMethods(long mMethods) {
-        this.missedMethods += mMethods;
+        this.counters[missedIndex(CounterType.METHOD)] += mMethods;
     }
 
     public long getMissedMethods() {
-        return this.missedMethods;
+        return this.counters[missedIndex(CounterType.METHOD)];
     }
 
     public void addTotalMethods(long cMethods) {
-        this.methods += cMethods;
+        this.counters[totalIndex(CounterType.METHOD)] += cMethods;
     }
 
     public long getTotalMethods() {
-        return this.methods;
+        return this.counters[totalIndex(CounterType.METHOD)];
     }
 
     public void addMissedClasses(long mClasses) {
-        this.missedClasses += mClasses;
+        this.counters[missedIndex(CounterType.CLASS)] += mClasses;
     }
 
     public long getMissedClasses() {
-        return this.missedClasses;
+        return this.counters[missedIndex(CounterType.CLASS)];
     }
 
     public void addTotalClasses(long cClasses) {
-        this.classes += cClasses;
+        this.counters[totalIndex(CounterType.CLASS)] += cClasses;
     }
 
     public long getTotalClasses() {
-        return this.classes;
+        return this.counters[totalIndex(CounterType.CLASS)];
+    }
+
+    private static int missedIndex(CounterType type) {
+        return type.ordinal() * 2;
+    }
+
+    private static int totalIndex(CounterType type) {
+        return type.ordinal() * 2 + 1;
+    }
+
+    /**
+     * Adds to the missed and total count of a counter.
+     *
+     * @param type
+     * @param missed
+     * @param total
+     */
+    public void add(CounterType type, long missed, long total) {
+        this.counters[missedIndex(type)] += missed;
+        this.counters[totalIndex(type)] += total;
+    }
+
+    public long getMissed(CounterType type) {
+        return this.counters[missedIndex(type)];
+    }
+
+    public long getTotal(CounterType type) {
+        return this.counters[totalIndex(type)];
     }
 
     public void addAll(DependencyUsage depUsage) {
-        this.addMissedInstructions(depUsage.getMissedInstructions());
-        this.addTotalInstructions(depUsage.getTotalInstructions());
-        this.addMissedBranches(depUsage.getMissedBranches());
-        this.addTotalBranches(depUsage.getTotalBranches());
-        this.addMissedCyclomaticComplexity(depUsage.getMissedCyclomaticComplexity());
-        this.addCyclomaticComplexity(depUsage.getCyclomaticComplexity());
-        this.addMissedLines(depUsage.getMissedLines());
-        this.addTotalLines(depUsage.getTotalLines());
-        this.addMissedMethods(depUsage.getMissedMethods());
-        this.addTotalMethods(depUsage.getTotalMethods());
-        this.addMissedClasses(depUsage.getMissedClasses());
-        this.addTotalClasses(depUsage.getTotalClasses());
+        long[] other = depUsage.counters;
+        for (int i = 0; i < this.counters.length; i++) {
+            this.counters[i] += other[i];
+        }
     }
 
     public String usageToHTML(String dependencyDirName, DependencyUsage total, boolean isPackage, boolean indirectEntry) {
-
+        StringBuilder sb = new StringBuilder(1024);
+        try {
+            appendUsageHTML(sb, dependencyDirName, total, isPackage, indirectEntry);
+        } catch (IOException e) {
+            // A StringBuilder does not throw
+            throw new IllegalStateException(e);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Appends the usage as a row of a report table
+     * whose resources are next to the page.
+     *
+     * @param out
+     * @param dependencyDirName name (and link target) of the entry
+     * @param total             usage the bars are relative to
+     * @param isPackage         entry of a package instead of a dependency
+     * @param indirectEntry     entry on an indirect dependencies page
+     * @throws IOException
+     */
+    public void appendUsageHTML(Appendable out, String dependencyDirName, DependencyUsage total,
+                                boolean isPackage, boolean indirectEntry) throws IOException {
+        appendUsageHTML(out, dependencyDirName, total, isPackage, indirectEntry, "jacoco-resources/");
+    }
+
+    /**
+     * Appends the usage as a row of a report table.
+     *
+     * @param out
+     * @param dependencyDirName name (and link target) of the entry
+     * @param total             usage the bars are relative to
+     * @param isPackage         entry of a package instead of a dependency
+     * @param indirectEntry     entry on an indirect dependencies page
+     * @param resourcesPath     path of the jacoco-resources relative to the page
+     * @throws IOException
+     */
+    public void appendUsageHTML(Appendable out, String dependencyDirName, DependencyUsage total,
+                                boolean isPackage, boolean indirectEntry, String resourcesPath) throws IOException {
         long coveredInstructions = this.getTotalInstructions() - this.getMissedInstructions();
         long coveredBranches = this.getTotalBranches() - this.getMissedBranches();
 
-        int redInstrBar = barLength(this.getMissedInstructions(), total.getTotalInstructions());
-        int greenInstrBar = barLength(coveredInstructions, total.getTotalInstructions());
-
-        int redBranchBar = barLength(this.getMissedBranches(), total.getTotalBranches());
-        int greenBranchBar = barLength(coveredBranches, total.getTotalBranches());
-        String icon;
-        if (isPackage) {
-            icon = "el_package";
-        } else {
-            icon = "el_group";
-        }
-        String link = dependencyDirName + "/index.html";
+        out.append("<tr>\n    <td id=\"a47\"><a href=\"");
         if (dependencyDirName.equals("indirect-dependencies") && indirectEntry) {
-            link = "indirect-dependencies.html";
+            out.append("indirect-dependencies.html");
         } else if (indirectEntry) {
-            link = "../" + dependencyDirName + "/index.html";
+            out.append("../").append(dependencyDirName).append("/index.html");
+        } else {
+            out.append(dependencyDirName).append("/index.html");
         }
-
-        String htmlString = "<tr>\n" +
-                "    <td id=\"a47\"><a href=\"" + link + "\" class=\"" + icon + "\">" + dependencyDirName + "</a></td>\n" +
-                "    <td class=\"bar\" id=\"b5\"><img src=\"jacoco-resources/redbar.gif\" width=\"" + redInstrBar + "\" height=\"10\" title=\"" + String.format("%,d", this.getMissedInstructions()) + "\" alt=\"" + String.format("%,d", this.getMissedInstructions()) + "\">" +
-                "<img src=\"jacoco-resources/greenbar.gif\" width=\"" + greenInstrBar + "\" height=\"10\" title=\"" + String.format("%,d", coveredInstructions) + "\" alt=\"" + String.format("%,d", coveredInstructions) + "\"></td>\n" +
-                "    <td class=\"ctr2\" id=\"c5\">" + percentage(coveredInstructions, this.getTotalInstructions()) + "</td>\n" +
-                "    <td class=\"bar\" id=\"d4\"><img src=\"jacoco-resources/redbar.gif\" width=\"" + redBranchBar + "\" height=\"10\" title=\"" + String.format("%,d", this.getMissedBranches()) + "\" alt=\"" + String.format("%,d", this.getMissedBranches()) + "\">" +
-                "<img src=\"jacoco-resources/greenbar.gif\" width=\"" + greenBranchBar + "\" height=\"10\" title=\"" + String.format("%,d", coveredBranches) + "\" alt=\"" + String.format("%,d", coveredBranches) + "\"></td>\n" +
-                "    <td class=\"ctr2\" id=\"e5\">" + percentage(coveredBranches, this.getTotalBranches()) + "</td>\n" +
-                "    <td class=\"ctr1\" id=\"f2\">" + String.format("%,d", this.getMissedCyclomaticComplexity()) + "</td>\n" +
-                "    <td class=\"ctr2\" id=\"g2\">" + String.format("%,d", this.getCyclomaticComplexity()) + "</td>\n" +
-                "    <td class=\"ctr1\" id=\"h2\">" + String.format("%,d", this.getMissedLines()) + "</td>\n" +
-                "    <td class=\"ctr2\" id=\"i2\">" + String.format("%,d", this.getTotalLines()) + "</td>\n" +
-                "    <td class=\"ctr1\" id=\"j1\">" + String.format("%,d", this.getMissedMethods()) + "</td>\n" +
-                "    <td class=\"ctr2\" id=\"k1\">" + String.format("%,d", this.getTotalMethods()) + "</td>\n" +
-                "    <td class=\"ctr1\" id=\"l13\">" + String.format("%,d", this.getMissedClasses()) + "</td>\n" +
-                "    <td class=\"ctr2\" id=\"m11\">" + String.format("%,d", this.getTotalClasses()) + "</td>\n" +
-                "</tr>\n";
-        return htmlString;
+        out.append("\" class=\"").append(isPackage ? "el_package" : "el_group").append("\">")
+                .append(dependencyDirName).append("</a></td>\n");
+        out.append("    <td class=\"bar\" id=\"b5\">");
+        appendBars(out, resourcesPath, this.getMissedInstructions(), coveredInstructions,
+                total.getTotalInstructions());
+        out.append("</td>\n    <td class=\"ctr2\" id=\"c5\">");
+        appendPercentage(out, coveredInstructions, this.getTotalInstructions());
+        out.append("</td>\n    <td class=\"bar\" id=\"d4\">");
+        appendBars(out, resourcesPath, this.getMissedBranches(), coveredBranches, total.getTotalBranches());
+        out.append("</td>\n    <td class=\"ctr2\" id=\"e5\">");
+        appendPercentage(out, coveredBranches, this.getTotalBranches());
+        out.append("</td>\n");
+        appendCounterCells(out);
+        out.append("</tr>\n");
     }
 
     public String totalUsageToHTML() {
-        long coveredInstructions = this.getTotalInstructions() - this.getMissedInstructions();
-        long coveredBranches = this.getTotalBranches() - this.getMissedBranches();
-        String htmlString = "<tr>\n" +
-                "    <td>Total</td>\n" +
-                "    <td class=\"bar\">" + String.format("%,d", this.getMissedInstructions()) + " of " + String.format("%,d", this.getTotalInstructions()) + "</td>\n" +
-                "    <td class=\"ctr2\" id=\"c5\">" + percentage(coveredInstructions, this.getTotalInstructions()) + "</td>\n" +
-                "    <td class=\"bar\">" + String.format("%,d", this.getMissedBranches()) + " of " + String.format("%,d", this.getTotalBranches()) + "</td>\n" +
-                "    <td class=\"ctr2\" id=\"e5\">" + percentage(coveredBranches, this.getTotalBranches()) + "</td>\n" +
-                "    <td class=\"ctr1\" id=\"f2\">" + String.format("%,d", this.getMissedCyclomaticComplexity()) + "</td>\n" +
-                "    <td class=\"ctr2\" id=\"g2\">" + String.format("%,d", this.getCyclomaticComplexity()) + "</td>\n" +
-                "    <td class=\"ctr1\" id=\"h2\">" + String.format("%,d", this.getMissedLines()) + "</td>\n" +
-                "    <td class=\"ctr2\" id=\"i2\">" + String.format("%,d", this.getTotalLines()) + "</td>\n" +
-                "    <td class=\"ctr1\" id=\"j1\">" + String.format("%,d", this.getMissedMethods()) + "</td>\n" +
-                "    <td class=\"ctr2\" id=\"k1\">" + String.format("%,d", this.getTotalMethods()) + "</td>\n" +
-                "    <td class=\"ctr1\" id=\"l13\">" + String.format("%,d", this.getMissedClasses()) + "</td>\n" +
-                "    <td class=\"ctr2\" id=\"m11\">" + String.format("%,d", this.getTotalClasses()) + "</td>\n" +
-                "</tr>\n";
-        return htmlString;
+        StringBuilder sb = new StringBuilder(1024);
+        try {
+            appendTotalUsageHTML(sb);
+        } catch (IOException e) {
+            // A StringBuilder does not throw
+            throw new IllegalStateException(e);
+        }
+        return sb.toString();
     }
 
-    public String totalUsageToXML() {
+    /**
+     * Appends the usage as the total row of a report table.
+     *
+     * @param out
+     * @throws IOException
+     */
+    public void appendTotalUsageHTML(Appendable out) throws IOException {
         long coveredInstructions = this.getTotalInstructions() - this.getMissedInstructions();
         long coveredBranches = this.getTotalBranches() - this.getMissedBranches();
-        long coveredLines = this.getTotalLines() - this.getMissedLines();
-        long coveredCyclomaticComplexity = this.getCyclomaticComplexity() - this.getMissedCyclomaticComplexity();
-        long coveredMethods = this.getTotalMethods() - this.getMissedMethods();
-        long coveredClasses = this.getTotalClasses() - this.getMissedClasses();
-
-        String xmlString =
-                "<counter covered=\"" + coveredInstructions + "\" missed=\"" + this.getMissedInstructions() + "\" type=\"INSTRUCTION\"/>" +
-                        "<counter covered=\"" + coveredBranches + "\" missed=\"" + this.getMissedBranches() + "\" type=\"BRANCH\"/>" +
-                        "<counter covered=\"" + coveredLines + "\" missed=\"" + this.getMissedLines() + "\" type=\"LINE\"/>" +
-                        "<counter covered=\"" + coveredCyclomaticComplexity + "\" missed=\"" + this.getMissedCyclomaticComplexity() + "\" type=\"COMPLEXITY\"/>" +
-                        "<counter covered=\"" + coveredMethods + "\" missed=\"" + this.getMissedMethods() + "\" type=\"METHOD\"/>" +
-                        "<counter covered=\"" + coveredClasses + "\" missed=\"" + this.getMissedClasses() + "\" type=\"CLASS\"/>";
 
-        return xmlString;
+        out.append("<tr>\n    <td>Total</td>\n    <td class=\"bar\">");
+        appendGrouped(out, this.getMissedInstructions());
+        out.append(" of ");
+        appendGrouped(out, this.getTotalInstructions());
+        out.append("</td>\n    <td class=\"ctr2\" id=\"c5\">");
+        appendPercentage(out, coveredInstructions, this.getTotalInstructions());
+        out.append("</td>\n    <td class=\"bar\">");
+        appendGrouped(out, this.getMissedBranches());
+        out.append(" of ");
+        appendGrouped(out, this.getTotalBranches());
+        out.append("</td>\n    <td class=\"ctr2\" id=\"e5\">");
+        appendPercentage(out, coveredBranches, this.getTotalBranches());
+        out.append("</td>\n");
+        appendCounterCells(out);
+        out.append("</tr>\n");
+    }
+
+    private static void appendBars(Appendable out, String resourcesPath, long missed, long covered, long total)
+            throws IOException {
+        out.append("<img src=\"").append(resourcesPath).append("redbar.gif\" width=\"");
+        appendDigits(out, barLength(missed, total), '0', 0);
+        out.append("\" height=\"10\" title=\"");
+        appendGrouped(out, missed);
+        out.append("\" alt=\"");
+        appendGrouped(out, missed);
+        out.append("\"><img src=\"").append(resourcesPath).append("greenbar.gif\" width=\"");
+        appendDigits(out, barLength(covered, total), '0', 0);
+        out.append("\" height=\"10\" title=\"");
+        appendGrouped(out, covered);
+        out.append("\" alt=\"");
+        appendGrouped(out, covered);
+        out.append("\">");
+    }
+
+    private void appendCounterCells(Appendable out) throws IOException {
+        appendCounterCell(out, "ctr1", "f2", this.getMissedCyclomaticComplexity());
+        appendCounterCell(out, "ctr2", "g2", this.getCyclomaticComplexity());
+        appendCounterCell(out, "ctr1", "h2", this.getMissedLines());
+        appendCounterCell(out, "ctr2", "i2", this.getTotalLines());
+        appendCounterCell(out, "ctr1", "j1", this.getMissedMethods());
+        appendCounterCell(out, "ctr2", "k1", this.getTotalMethods());
+        appendCounterCell(out, "ctr1", "l13", this.getMissedClasses());
+        appendCounterCell(out, "ctr2", "m11", this.getTotalClasses());
+    }
+
+    private static void appendCounterCell(Appendable out, String cssClass, String id, long value) throws IOException {
+        out.append("    <td class=\"").append(cssClass).append("\" id=\"").append(id).append("\">");
+        appendGrouped(out, value);
+        out.append("</td>\n");
     }
 
-    public String usageToMarkdown(String name) {
-        long coveredInstructions = this.getTotalInstructions() - this.getMissedInstructions();
-        String coveredInstructionsPercentage = lessRoundedPercentage(coveredInstructions, this.getTotalInstructions());
-        String missedInstructionsPercentage = lessRoundedPercentage(this.getMissedInstructions(), this.getTotalInstructions());
-
-        long coveredBranches = this.getTotalBranches() - this.getMissedBranches();
-        String coveredBranchesPercentage = lessRoundedPercentage(coveredBranches, this.getTotalBranches());
-        String missedBranchesPercentage = lessRoundedPercentage(this.getMissedBranches(), this.getTotalBranches());
-
-        long coveredLines = this.getTotalLines() - this.getMissedLines();
-        String coveredLinesPercentage = lessRoundedPercentage(coveredLines, this.getTotalLines());
-        String missedLinesPercentage = lessRoundedPercentage(this.getMissedLines(), this.getTotalLines());
-
-        long coveredCyclomaticComplexity = this.getCyclomaticComplexity() - this.getMissedCyclomaticComplexity();
-        String coveredComplexityPercentage = lessRoundedPercentage(coveredCyclomaticComplexity, this.getCyclomaticComplexity());
-        String missedComplexityPercentage = lessRoundedPercentage(this.getMissedCyclomaticComplexity(), this.getCyclomaticComplexity());
-
-        long coveredMethods = this.getTotalMethods() - this.getMissedMethods();
-        String coveredMethodsPercentage = lessRoundedPercentage(coveredMethods, this.getTotalMethods());
-        String missedMethodsPercentage = lessRoundedPercentage(this.getMissedMethods(), this.getTotalMethods());
-
-        long coveredClasses = this.getTotalClasses() - this.getMissedClasses();
-        String coveredClassesPercentage = lessRoundedPercentage(coveredClasses, this.getTotalClasses());
-        String missedClassesPercentage = lessRoundedPercentage(this.getMissedClasses(), this.getTotalClasses());
+    public String totalUsageToXML() {
+        return totalUsageToXML("", "");
+    }
+
+    /**
+     * Writes the usage as JaCoCo counter elements,
+     * one counter per line with the given indentation.
+     *
+     * @param indent
+     * @return String
+     */
+    public String totalUsageToXML(String indent) {
+        return totalUsageToXML(indent, "\n");
+    }
+
+    private String totalUsageToXML(String indent, String lineEnd) {
+        StringBuilder sb = new StringBuilder(512);
+        try {
+            appendTotalUsageXML(sb, indent, lineEnd);
+        } catch (IOException e) {
+            // A StringBuilder does not throw
+            throw new IllegalStateException(e);
+        }
+        return sb.toString();
+    }
 
-        String usageString =
-                "### " + name + " (covered, total):" + "  \n" +
-                        "**INSTRUCTION** &nbsp;" + coveredInstructions + " : " + coveredInstructionsPercentage + " | "
-                        + this.getTotalInstructions() + "  \n" +
+    /**
+     * Appends the usage as JaCoCo counter elements,
+     * one counter per line with the given indentation.
+     *
+     * @param out
+     * @param indent
+     * @throws IOException
+     */
+    public void appendTotalUsageXML(Appendable out, String indent) throws IOException {
+        appendTotalUsageXML(out, indent, "\n");
+    }
 
-                        "**METHOD** &nbsp;" + coveredMethods + " : " + coveredMethodsPercentage + " | " +
-                        + this.getTotalMethods() + "  \n" +
+    private void appendTotalUsageXML(Appendable out, String indent, String lineEnd) throws IOException {
+        for (CounterType type : CounterType.types()) {
+            appendCounterXML(out, indent, lineEnd, type.name(), getMissed(type), getTotal(type));
+        }
+    }
 
-                        "**CLASS** &nbsp;" + coveredClasses + " : " + coveredClassesPercentage + " | " +
-                        this.getTotalClasses() + "  \n";
+    private static void appendCounterXML(Appendable out, String indent, String lineEnd, String type,
+                                         long missed, long total) throws IOException {
+        out.append(indent).append("<counter covered=\"");
+        appendDigits(out, total - missed, '0', 0);
+        out.append("\" missed=\"");
+        appendDigits(out, missed, '0', 0);
+        out.append("\" type=\"").append(type).append("\"/>").append(lineEnd);
+    }
 
-        return usageString;
+    public String usageToMarkdown(String name) {
+        StringBuilder sb = new StringBuilder(256);
+        try {
+            appendUsageMarkdown(sb, name, createPercentageFormat());
+        } catch (IOException e) {
+            // A StringBuilder does not throw
+            throw new IllegalStateException(e);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Creates the format of the percentages in the report summary,
+     * to be shared by all its sections. Not thread-safe.
+     *
+     * @return DecimalFormat with up to four decimal places
+     */
+    public static DecimalFormat createPercentageFormat() {
+        return new DecimalFormat("#.####");
+    }
+
+    /**
+     * Appends the covered and total instructions, methods
+     * and classes as a section of the report summary.
+     *
+     * @param out
+     * @param name          title of the section
+     * @param decimalFormat format of the percentages, see `createPercentageFormat()`
+     * @throws IOException
+     */
+    public void appendUsageMarkdown(Appendable out, String name, DecimalFormat decimalFormat) throws IOException {
+        out.append("### ").append(name).append(" (covered, total):  \n");
+        appendMarkdownEntry(out, decimalFormat, "INSTRUCTION", this.getMissedInstructions(), this.getTotalInstructions());
+        appendMarkdownEntry(out, decimalFormat, "METHOD", this.getMissedMethods(), this.getTotalMethods());
+        appendMarkdownEntry(out, decimalFormat, "CLASS", this.getMissedClasses(), this.getTotalClasses());
+    }
+
+    private static void appendMarkdownEntry(Appendable out, DecimalFormat decimalFormat, String type,
+                                            long missed, long total) throws IOException {
+        long covered = total - missed;
+        out.append("**").append(type).append("** &nbsp;");
+        appendDigits(out, covered, '0', 0);
+        out.append(" : ").append(decimalFormat.format((double) covered / total * 100)).append("% | ");
+        appendDigits(out, total, '0', 0);
+        out.append("  \n");
+    }
+
+    /**
+     * Appends a number grouped like `String.format("%,d", value)`
+     * in the default locale, without creating a Formatter.
+     */
+    private static void appendGrouped(Appendable out, long value) throws IOException {
+        appendDigits(out, value, ZERO_DIGIT, GROUPING_SIZE);
+    }
+
+    /**
+     * Appends the decimal digits of a number, most
+     * significant first, straight to the output.
+     *
+     * @param out
+     * @param value
+     * @param zeroDigit    the digit zero, the other digits follow it
+     * @param groupingSize digits per group or 0 for no grouping
+     * @throws IOException
+     */
+    private static void appendDigits(Appendable out, long value, char zeroDigit, int groupingSize) throws IOException {
+        // Negative, so that Long.MIN_VALUE is handled as well
+        long remaining = value < 0 ? value : -value;
+        if (value < 0) {
+            out.append('-');
+        }
+        int digitCount = 1;
+        long divisor = 1;
+        while (remaining / divisor <= -10) {
+            divisor *= 10;
+            digitCount++;
+        }
+        for (int digitsLeft = digitCount; digitsLeft > 0; digitsLeft--) {
+            long digit = remaining / divisor;
+            out.append((char) (zeroDigit - digit));
+            remaining -= digit * divisor;
+            divisor /= 10;
+            if (groupingSize > 0 && digitsLeft > 1 && (digitsLeft - 1) % groupingSize == 0) {
+                out.append(GROUPING_SEPARATOR);
+            }
+        }
     }
 
 }
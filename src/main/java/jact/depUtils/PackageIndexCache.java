@@ -0,0 +1,114 @@
+package jact.depUtils;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Persistent cache of the classes contained in dependency jars.
+ * Released artifacts never change, so the class list of a
+ * dependency is stored on disk keyed by the artifact: the
+ * checksum from the lockfile, else the SHA-1 the local
+ * repository keeps next to the jar, else the dependency with
+ * the size and modification time of its jars (see
+ * `PackageToDependencyResolver`). The cache directory can be
+ * shared between builds (e.g. on CI agents) to avoid opening
+ * any jar at all.
+ */
+public class PackageIndexCache {
+    private static final String CACHE_FILE_SUFFIX = ".classes";
+    private static final String JARS_HEADER = "#jars:";
+
+    private final File cacheDir;
+
+    public PackageIndexCache(String cacheDirectory) {
+        this.cacheDir = new File(cacheDirectory);
+    }
+
+    /**
+     * Reads the cached classes of a dependency.
+     *
+     * @param cacheKey  key of the artifact, see the class comment
+     * @param jarNames  names of the jars the classes were read from
+     * @return the cached class names or null if there is no valid entry
+     */
+    public Set<String> readClasses(String cacheKey, String jarNames) {
+        File cacheFile = new File(this.cacheDir, cacheKey + CACHE_FILE_SUFFIX);
+        if (!cacheFile.isFile()) {
+            return null;
+        }
+        try (BufferedReader reader = Files.newBufferedReader(cacheFile.toPath(), StandardCharsets.UTF_8)) {
+            String header = reader.readLine();
+            // The entry is only valid for the same set of jars
+            if (header == null || !header.equals(JARS_HEADER + jarNames)) {
+                return null;
+            }
+            Set<String> classes = new LinkedHashSet<>();
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (!line.isEmpty()) {
+                    classes.add(line);
+                }
+            }
+            return classes;
+        } catch (IOException e) {
+            System.err.println("Could not read package cache entry: " + cacheFile.getPath());
+            return null;
+        }
+    }
+
+    /**
+     * Stores the classes (internal names) of a dependency. The entry is written
+     * to a temporary file first and then moved into place so that
+     * concurrent builds sharing the cache never read partial entries.
+     *
+     * @param cacheKey
+     * @param jarNames
+     * @param classes
+     */
+    public void writeClasses(String cacheKey, String jarNames, Collection<String> classes) {
+        // Entries of several dependencies may be written concurrently
+        if (!this.cacheDir.mkdirs() && !this.cacheDir.isDirectory()) {
+            System.err.println("Could not create package cache directory: " + this.cacheDir.getPath());
+            return;
+        }
+        Path cacheFile = new File(this.cacheDir, cacheKey + CACHE_FILE_SUFFIX).toPath();
+        Path tempFile = null;
+        try {
+            tempFile = Files.createTempFile(this.cacheDir.toPath(), cacheKey, ".tmp");
+            try (BufferedWriter writer = Files.newBufferedWriter(tempFile, StandardCharsets.UTF_8)) {
+                writer.write(JARS_HEADER + jarNames);
+                writer.newLine();
+                for (String className : classes) {
+                    writer.write(className);
+                    writer.newLine();
+                }
+            }
+            Files.move(tempFile, cacheFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            tempFile = null;
+        } catch (IOException e) {
+            System.err.println("Could not write package cache entry: " + cacheFile);
+        } finally {
+            // Left over if writing or moving failed
+            if (tempFile != null) {
+                deleteTempFile(tempFile);
+            }
+        }
+    }
+
+    private static void deleteTempFile(Path tempFile) {
+        try {
+            Files.deleteIfExists(tempFile);
+        } catch (IOException e) {
+            System.err.println("Could not delete temporary package cache entry: " + tempFile);
+        }
+    }
+}
@@ -1,82 +1,333 @@
 package jact.depUtils;
 
+import jact.utils.CentralDirectoryReader;
+
 import java.io.File;
-import java.io.FilenameFilter;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.Enumeration;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipFile;
 
+import static jact.depUtils.ProjectDependency.depToDirName;
+
 /**
- * Resolves a package name to a dependency in the local .m2 folder.
+ * Resolves a class or package name to a dependency in the local .m2 folder.
  */
 public class PackageToDependencyResolver {
 
-    private static ProjectDependency prevMatchedDep = new ProjectDependency();
-
-    public static ProjectDependency packageToDependency(String packageName, Map<String,
-                                                        ProjectDependency> dependenciesMap,
-                                                        String localRepoPath) {
+    // Classes of all dependencies. Completely built in the constructor and not
+    // modified afterwards, so lookups can be made from several threads without locking.
+    private final ClassTrie classIndex = new ClassTrie();
+    // Persistent class lists of previously seen jars (null if disabled)
+    private final PackageIndexCache packageIndexCache;
 
-        ProjectDependency matchedDep = new ProjectDependency();
-        boolean foundPackage = false;
+    /**
+     * Creates a resolver for the given dependencies
+     * and builds its class index on the calling thread.
+     *
+     * @param dependenciesMap
+     * @param localRepoPath
+     * @param packageIndexCache cache of dependency classes, or null to always read the jars
+     */
+    public PackageToDependencyResolver(Map<String, ProjectDependency> dependenciesMap, String localRepoPath,
+                                       PackageIndexCache packageIndexCache) {
+        this(dependenciesMap, localRepoPath, packageIndexCache, 1);
+    }
 
-        // Check the last matched dependency
-        if(prevMatchedDep.getId() != null){
-            foundPackage = containsPackage(packageName, getDependencyJars(prevMatchedDep, localRepoPath));
-        }
+    /**
+     * Creates a resolver for the given dependencies
+     * and builds its class index.
+     *
+     * @param dependenciesMap
+     * @param localRepoPath
+     * @param packageIndexCache cache of dependency classes, or null to always read the jars
+     * @param threadCount       number of threads reading the jars (or cache entries)
+     */
+    public PackageToDependencyResolver(Map<String, ProjectDependency> dependenciesMap, String localRepoPath,
+                                       PackageIndexCache packageIndexCache, int threadCount) {
+        this.packageIndexCache = packageIndexCache;
+        buildClassIndex(dependenciesMap, localRepoPath, threadCount);
+    }
 
-        if(foundPackage){
-            matchedDep = prevMatchedDep;
-        }else{
-            // Check all dependencies for the package
-            for (ProjectDependency dependency : dependenciesMap.values()) {
-                foundPackage = containsPackage(packageName, getDependencyJars(dependency, localRepoPath));
-                if(foundPackage){
-                    prevMatchedDep = dependency;
-                    matchedDep = dependency;
-                    break;
-                }
-            }
+    /**
+     * Creates a resolver for classes that are already attributed
+     * to their dependency, e.g. by analyzing the dependency jars
+     * directly. No jars are read.
+     *
+     * @param classDependencies internal class name -> dependency providing the class
+     */
+    public PackageToDependencyResolver(Map<String, ProjectDependency> classDependencies) {
+        this.packageIndexCache = null;
+        for (Map.Entry<String, ProjectDependency> entry : classDependencies.entrySet()) {
+            this.classIndex.addClass(entry.getKey(), entry.getValue());
         }
+    }
 
-        if (matchedDep.getId() == null) {
+    /**
+     * Gets the dependency providing the classes of a package. The
+     * classes of a split package are provided by several dependencies,
+     * in which case the dependency providing most of them is returned.
+     *
+     * @param packageName '.' or '/' separated
+     * @return the dependency, without an id if it could not be matched
+     */
+    public ProjectDependency packageToDependency(String packageName) {
+        ProjectDependency matchedDep = this.classIndex.getPackageDependency(packageName);
+        if (matchedDep == null) {
             // Usually a problem with a runtime dependency required by a test-dependency.
             // Which jacoco occasionally includes. Remove it.
             System.out.println("COULD NOT MATCH PACKAGE TO ANY DEPENDENCY: " + packageName);
+            return new ProjectDependency();
         }
         return matchedDep;
     }
 
     /**
-     * Checks if the given jars contain the
-     * packaged that is being searched for.
-     * @param packageName
-     * @param jarFiles
-     * @return
+     * Gets the dependency providing a class.
+     *
+     * @param className internal name of the class ('/' separated)
+     * @return the dependency, without an id if it could not be matched
      */
-    private static boolean containsPackage(String packageName, File[] jarFiles){
-        if (jarFiles != null && jarFiles.length > 0) {
-            for(File jarFile : jarFiles){
-                try (ZipFile zipFile = new ZipFile(jarFile)) {
-                    Enumeration<? extends ZipEntry> entries = zipFile.entries();
-                    while (entries.hasMoreElements()) {
-                        ZipEntry entry = entries.nextElement();
-                        // Check if the entry is a class file within the desired package
-                        if (entry.getName().startsWith(packageName.replace('.', '/')) && entry.getName().endsWith(".class")) {
-                            //System.out.println("Package: " + packageName + " matched to dependency: " +
-                            // groupId + ":" + artifactId + ":" + version);
-                            return true;
-                        }
-                    }
-                } catch (IOException e) {
-                    e.printStackTrace();
+    public ProjectDependency classToDependency(String className) {
+        ProjectDependency matchedDep = this.classIndex.getClassDependency(className);
+        if (matchedDep == null) {
+            System.out.println("COULD NOT MATCH CLASS TO ANY DEPENDENCY: " + className);
+            return new ProjectDependency();
+        }
+        return matchedDep;
+    }
+
+    /**
+     * Checks whether the classes of a package are provided by several
+     * dependencies, e.g. `javax.annotation` by jsr305 and
+     * jakarta.annotation-api. Such packages have to be resolved per class.
+     *
+     * @param packageName '.' or '/' separated
+     * @return boolean
+     */
+    public boolean isSplitPackage(String packageName) {
+        return this.classIndex.isSplitPackage(packageName);
+    }
+
+    /**
+     * Builds the class index by reading the central
+     * directory of every dependency jar exactly once.
+     * The jars of different dependencies are read
+     * concurrently, while the classes are added in the
+     * order of the dependencies: if a class is present in
+     * several dependencies the first dependency is kept.
+     * The dependencies are read in the order of the
+     * dependency graph, so this is deterministic.
+     *
+     * @param dependenciesMap
+     * @param localRepoPath
+     * @param threadCount
+     */
+    private void buildClassIndex(Map<String, ProjectDependency> dependenciesMap, String localRepoPath,
+                                 int threadCount) {
+        List<ProjectDependency> dependencies = new ArrayList<>(dependenciesMap.values());
+        List<Set<String>> dependencyClasses = threadCount > 1 && dependencies.size() > 1 ?
+                readDependencyClassesConcurrently(dependencies, localRepoPath, threadCount) :
+                readDependencyClasses(dependencies, localRepoPath);
+        for (int i = 0; i < dependencies.size(); i++) {
+            for (String className : dependencyClasses.get(i)) {
+                this.classIndex.addClass(className, dependencies.get(i));
+            }
+        }
+    }
+
+    private List<Set<String>> readDependencyClasses(List<ProjectDependency> dependencies, String localRepoPath) {
+        List<Set<String>> dependencyClasses = new ArrayList<>(dependencies.size());
+        for (ProjectDependency dependency : dependencies) {
+            dependencyClasses.add(getDependencyClasses(dependency, localRepoPath));
+        }
+        return dependencyClasses;
+    }
+
+    /**
+     * Reads the classes of the dependencies with a fixed
+     * number of threads, waiting for all of them.
+     *
+     * @param dependencies
+     * @param localRepoPath
+     * @param threadCount
+     * @return the classes of each dependency, in the order of the dependencies
+     */
+    private List<Set<String>> readDependencyClassesConcurrently(List<ProjectDependency> dependencies,
+                                                                String localRepoPath, int threadCount) {
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(threadCount, dependencies.size()));
+        try {
+            List<Future<Set<String>>> futures = new ArrayList<>(dependencies.size());
+            for (ProjectDependency dependency : dependencies) {
+                futures.add(executor.submit(() -> getDependencyClasses(dependency, localRepoPath)));
+            }
+            List<Set<String>> dependencyClasses = new ArrayList<>(dependencies.size());
+            for (Future<Set<String>> future : futures) {
+                dependencyClasses.add(future.get());
+            }
+            return dependencyClasses;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while reading the dependency jars", e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException(e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Gets all classes contained in the jars of a dependency,
+     * from the persistent cache when the dependency has been
+     * seen before, otherwise by reading the jars.
+     *
+     * @param dependency
+     * @param localRepoPath
+     * @return Set<String>
+     */
+    private Set<String> getDependencyClasses(ProjectDependency dependency, String localRepoPath) {
+        File[] jarFiles = getDependencyJars(dependency, localRepoPath);
+        if (jarFiles == null || jarFiles.length == 0) {
+            return Collections.emptySet();
+        }
+        Arrays.sort(jarFiles);
+        StringBuilder jarNames = new StringBuilder();
+        for (File jarFile : jarFiles) {
+            if (jarNames.length() > 0) {
+                jarNames.append(',');
+            }
+            jarNames.append(jarFile.getName());
+        }
+
+        String cacheKey = this.packageIndexCache != null ? cacheKey(dependency, jarFiles) : null;
+        boolean cacheable = cacheKey != null && !cacheKey.isEmpty();
+        if (cacheable) {
+            Set<String> cachedClasses = this.packageIndexCache.readClasses(cacheKey, jarNames.toString());
+            if (cachedClasses != null) {
+                return cachedClasses;
+            }
+        }
+
+        Set<String> classes = new LinkedHashSet<>();
+        for (File jarFile : jarFiles) {
+            readJarClasses(jarFile, classes);
+        }
+        if (cacheable) {
+            this.packageIndexCache.writeClasses(cacheKey, jarNames.toString(), classes);
+        }
+        return classes;
+    }
+
+    /**
+     * Gets the key of the package cache entry of a dependency
+     * without hashing its jars: the checksum from the lockfile,
+     * the SHA-1 the repository stores next to a downloaded jar,
+     * or else the dependency with the size and modification
+     * time of its jars.
+     *
+     * @param dependency
+     * @param jarFiles   the jars of the dependency
+     * @return String
+     */
+    private static String cacheKey(ProjectDependency dependency, File[] jarFiles) {
+        String checksum = dependency.getChecksum();
+        if (checksum != null && !checksum.isEmpty()) {
+            return checksum;
+        }
+        if (jarFiles.length == 1) {
+            String sha1 = readSha1(new File(jarFiles[0].getPath() + ".sha1"));
+            if (sha1 != null) {
+                return sha1;
+            }
+        }
+        long size = 0;
+        long lastModified = 0;
+        for (File jarFile : jarFiles) {
+            size += jarFile.length();
+            lastModified = Math.max(lastModified, jarFile.lastModified());
+        }
+        return depToDirName(dependency) + "-" + size + "-" + lastModified;
+    }
+
+    /**
+     * Reads a checksum file of the repository, which holds the
+     * checksum optionally followed by the name of the file.
+     *
+     * @param sha1File
+     * @return the SHA-1 as lowercase hex or null if there is no valid one
+     */
+    private static String readSha1(File sha1File) {
+        if (!sha1File.isFile()) {
+            return null;
+        }
+        try {
+            String content = new String(Files.readAllBytes(sha1File.toPath()), StandardCharsets.UTF_8).trim();
+            String sha1 = content.split("\\s+", 2)[0].toLowerCase(Locale.ROOT);
+            return sha1.matches("[0-9a-f]{40}") ? sha1 : null;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Adds the internal names of all classes in the jar to the
+     * given set. The central directory is read without creating
+     * an object per entry. Archives it cannot handle (e.g. with
+     * data prepended to the ZIP) are read with `ZipFile` instead.
+     *
+     * @param jarFile
+     * @param classes
+     */
+    private static void readJarClasses(File jarFile, Set<String> classes) {
+        try {
+            CentralDirectoryReader.readClassNames(jarFile, classes);
+            return;
+        } catch (IOException e) {
+            System.out.println("Reading " + jarFile.getName() + " with ZipFile: " + e.getMessage());
+        }
+        try (ZipFile zipFile = new ZipFile(jarFile)) {
+            Enumeration<? extends ZipEntry> entries = zipFile.entries();
+            while (entries.hasMoreElements()) {
+                String className = classEntryToClassName(entries.nextElement().getName());
+                if (className != null) {
+                    classes.add(className);
                 }
             }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Gets the internal name of a class file entry, or
+     * null if the entry is not a class file in a named
+     * package.
+     *
+     * @param entryName
+     * @return String
+     */
+    private static String classEntryToClassName(String entryName) {
+        if (!entryName.endsWith(".class") || entryName.startsWith("META-INF/")) {
+            return null;
+        }
+        if (entryName.lastIndexOf('/') <= 0) {
+            return null;
         }
-        return false;
+        return entryName.substring(0, entryName.length() - ".class".length());
     }
 
     /**
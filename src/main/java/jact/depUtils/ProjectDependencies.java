@@ -1,132 +1,367 @@
 package jact.depUtils;
 
-import com.google.gson.*;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParser;
+import com.google.gson.stream.JsonReader;
+import org.apache.maven.artifact.Artifact;
+import org.apache.maven.shared.dependency.graph.DependencyNode;
 
 import java.io.FileReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
 import java.util.HashMap;
-import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
 import static jact.depUtils.ProjectDependency.depToDirName;
-import static jact.plugin.AbstractReportMojo.getJactReportPath;
-import static jact.utils.CommandExecutor.generateDependencyLockfile;
 
 /**
  * Creates all the project dependencies and their ProjectDependency objects
  * in order to calculate and write the reported usage from jacoco.
+ * One instance is used per report execution.
  */
 public class ProjectDependencies {
-    private static Map<String, ProjectDependency> projectDependenciesMap;
-    private static Map<String, DependencyUsage> indirectUsageMap;
-    private static Set<String> visited;
-    private static boolean skipTestDependencies;
-
-    public static Map<String, ProjectDependency> getAllProjectDependencies(String targetDirectory,
-                                                                           boolean genLockfile,
-                                                                           boolean skipTestDeps) {
-        // Reset previous objects (for the combined report caused by static classes)
-        projectDependenciesMap = new HashMap<>();
-        indirectUsageMap = new HashMap<>();
-        visited = new HashSet<>();
-        skipTestDependencies = skipTestDeps;
-
-        generateAllProjectDependencies(targetDirectory, genLockfile);
-
-        return projectDependenciesMap;
+    // In the order the dependencies are read, so that the result does not depend on hashing
+    private final Map<String, ProjectDependency> projectDependenciesMap = new LinkedHashMap<>();
+    private final Map<String, DependencyUsage> indirectUsageMap = new HashMap<>();
+    private final String reportPath;
+    private final boolean skipTestDependencies;
+
+    /**
+     * @param reportPath   the JACT report directory the dependency reports are placed in
+     * @param skipTestDeps skip test-scope dependencies
+     */
+    public ProjectDependencies(String reportPath, boolean skipTestDeps) {
+        this.reportPath = reportPath;
+        this.skipTestDependencies = skipTestDeps;
     }
 
     /**
-     * Generate the project lockfile containing all the project dependencies
+     * Reads the project lockfile containing all the project dependencies
      * including their indirect dependencies and creates their corresponding
      * ProjectDependency object with child/parent dependencies.
+     * The lockfile is streamed, so only the dependencies that are being
+     * read are kept in memory.
      *
-     * @param targetDirectory
-     * @param genLockfile
+     * @param targetDirectory directory containing the lockfile.json
+     * @return Map with the dependency id as key
+     * @throws IllegalStateException if the lockfile cannot be read
      */
-    private static void generateAllProjectDependencies(String targetDirectory, boolean genLockfile) {
-        if (genLockfile) {
-            generateDependencyLockfile(targetDirectory);
-        }
+    public Map<String, ProjectDependency> getAllProjectDependencies(String targetDirectory) {
         String filePath = targetDirectory + "lockfile.json"; // Path to the JSON file
-        try (FileReader reader = new FileReader(filePath)) {
-            Gson gson = new GsonBuilder().registerTypeAdapter(ProjectDependency.class, new ProjectDependencyDeserializer()).create();
-            JsonElement jsonElement = gson.fromJson(reader, JsonElement.class);
-            JsonArray dependenciesArray = jsonElement.getAsJsonObject().getAsJsonArray("dependencies");
-            for (JsonElement dependencyElement : dependenciesArray) {
-                gson.fromJson(dependencyElement, ProjectDependency.class);
+        try (JsonReader reader = new JsonReader(new FileReader(filePath))) {
+            reader.beginObject();
+            while (reader.hasNext()) {
+                if (reader.nextName().equals("dependencies")) {
+                    readDependencies(reader, null);
+                } else {
+                    reader.skipValue();
+                }
             }
-        } catch (Exception e) {
-            e.printStackTrace();
+            reader.endObject();
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not read the lockfile " + filePath, e);
         }
+        return this.projectDependenciesMap;
     }
 
-    static class ProjectDependencyDeserializer implements com.google.gson.JsonDeserializer<ProjectDependency> {
-        @Override
-        public ProjectDependency deserialize(JsonElement json, java.lang.reflect.Type typeOfT, com.google.gson.JsonDeserializationContext context) {
-            JsonObject jsonObject = json.getAsJsonObject();
-            ProjectDependency parentDep = new ProjectDependency();
-            return parseDependency(jsonObject, parentDep);
+    /**
+     * Creates the ProjectDependency objects from the dependency graph
+     * collected by Maven, the graph the lockfile is generated from. As in
+     * the (reduced) lockfile, repeated dependencies are kept while
+     * dependencies that lost a version conflict are left out together
+     * with their children.
+     *
+     * @param rootNode          node of the project in the verbose dependency graph
+     * @param resolvedArtifacts the resolved dependencies of the project
+     * @return Map with the dependency id as key
+     */
+    public Map<String, ProjectDependency> getAllProjectDependencies(DependencyNode rootNode,
+                                                                    Set<Artifact> resolvedArtifacts) {
+        // Selected version of every resolved dependency, the base version as a
+        // resolved snapshot has a timestamped version unlike its graph node
+        Map<String, String> selectedVersions = new HashMap<>();
+        for (Artifact artifact : resolvedArtifacts) {
+            selectedVersions.put(artifact.getDependencyConflictId(), artifact.getBaseVersion());
         }
 
-        private ProjectDependency parseDependency(JsonObject jsonObject, ProjectDependency parentDep) {
-            String dependencyId = jsonObject.get("id").getAsString();
-            String dependencyScope = jsonObject.get("scope").getAsString();
-            String parentString = jsonObject.has("parent") ? jsonObject.get("parent").getAsString() : "";
+        Deque<NodeEntry> entries = new ArrayDeque<>();
+        entries.push(new NodeEntry(null, selectedChildren(rootNode, selectedVersions)));
+        while (!entries.isEmpty()) {
+            NodeEntry entry = entries.peek();
+            if (!entry.children.hasNext()) {
+                entries.pop();
+                continue;
+            }
+            DependencyNode node = entry.children.next();
+            Artifact artifact = node.getArtifact();
+            DependencyEntry dependencyEntry = new DependencyEntry(entry.dependency);
+            dependencyEntry.id = artifact.getGroupId() + ":" + artifact.getArtifactId() + ":" +
+                    artifact.getBaseVersion();
+            dependencyEntry.scope = artifact.getScope() != null ? artifact.getScope() : "compile";
+            dependencyEntry.groupId = artifact.getGroupId();
+            dependencyEntry.artifactId = artifact.getArtifactId();
+            dependencyEntry.version = artifact.getBaseVersion();
 
-            if ((skipTestDependencies && dependencyScope.equals("test")) || dependencyScope.equals("provided")) {
-                //Skipping provided- and test-scope dependencies
-                return new ProjectDependency();
+            ProjectDependency dependency = resolveDependency(dependencyEntry);
+            if (entry.dependency != null) {
+                entry.dependency.addChildDep(dependency);
+            }
+            if (dependency.getId() == null) {
+                // Skipped together with its children
+                continue;
+            }
+            List<DependencyNode> children = selectedChildren(node, selectedVersions);
+            if (!children.isEmpty()) {
+                addIndirect(dependency);
+                entries.push(new NodeEntry(dependency, children));
+            }
+        }
+        return this.projectDependenciesMap;
+    }
+
+    /**
+     * Gets the children of a node that were selected by the
+     * conflict resolution, sorted by their id like in the lockfile.
+     *
+     * @param node
+     * @param selectedVersions selected version by dependency conflict id
+     * @return List<DependencyNode>
+     */
+    private static List<DependencyNode> selectedChildren(DependencyNode node, Map<String, String> selectedVersions) {
+        List<DependencyNode> children = new ArrayList<>();
+        for (DependencyNode child : node.getChildren()) {
+            Artifact artifact = child.getArtifact();
+            String selectedVersion = selectedVersions.get(artifact.getDependencyConflictId());
+            if (selectedVersion == null || selectedVersion.equals(artifact.getBaseVersion())) {
+                children.add(child);
             }
-            if (visited.contains(dependencyId)) {
-                // If the dependency has been visited before, find it, add the parent and return it.
-                ProjectDependency pd = projectDependenciesMap.get(dependencyId);
-                if (parentDep.getId() != null) {
-                    pd.addParentDep(parentDep);
-                } else if (!parentString.isEmpty()) {
-                    pd.addParentDep(projectDependenciesMap.get(parentString));
+        }
+        children.sort(Comparator.comparing((DependencyNode child) -> child.getArtifact().getGroupId())
+                .thenComparing(child -> child.getArtifact().getArtifactId())
+                .thenComparing(child -> child.getArtifact().getBaseVersion()));
+        return children;
+    }
+
+    /**
+     * A node of the Maven dependency graph whose
+     * children are being walked.
+     */
+    private static class NodeEntry {
+        // Null for the project itself
+        private final ProjectDependency dependency;
+        private final Iterator<DependencyNode> children;
+
+        private NodeEntry(ProjectDependency dependency, List<DependencyNode> children) {
+            this.dependency = dependency;
+            this.children = children.iterator();
+        }
+    }
+
+    /**
+     * Reads the dependencies array of the lockfile. The dependency
+     * trees are walked with an explicit stack instead of recursion,
+     * so deep trees do not exhaust the call stack. A dependency
+     * appearing several times is created once and linked to all
+     * of its parents.
+     *
+     * @param reader    positioned at the dependencies array
+     * @param parentDep dependency the array holds the children of,
+     *                  null for the dependencies of the project
+     * @throws IOException
+     */
+    private void readDependencies(JsonReader reader, ProjectDependency parentDep) throws IOException {
+        Deque<DependencyEntry> entries = new ArrayDeque<>();
+        reader.beginArray();
+        while (true) {
+            DependencyEntry entry = entries.peek();
+            if (entry == null) {
+                // Between the dependencies of the project
+                if (!reader.hasNext()) {
+                    break;
+                }
+                reader.beginObject();
+                entries.push(new DependencyEntry(parentDep));
+            } else if (entry.readingChildren) {
+                if (reader.hasNext()) {
+                    reader.beginObject();
+                    entries.push(new DependencyEntry(entry.dependency));
                 } else {
-                    pd.rootDep = true;
+                    reader.endArray();
+                    entry.readingChildren = false;
                 }
-                JsonArray childrenJsonArray = jsonObject.getAsJsonArray("children");
-                if (!childrenJsonArray.isEmpty()) {
-                    addIndirect(pd);
-                    for (JsonElement element : childrenJsonArray) {
-                        ProjectDependency child = parseDependency(element.getAsJsonObject(), pd);
-                        pd.addChildDep(child);
-                    }
+            } else if (reader.hasNext()) {
+                String name = reader.nextName();
+                if (name.equals("children")) {
+                    readChildren(reader, entry);
+                } else {
+                    entry.readField(reader, name);
                 }
-                return pd;
-            }
-            visited.add(dependencyId);
-
-            ProjectDependency projectDependency = new ProjectDependency();
-            projectDependency.setId(jsonObject.has("id") ? jsonObject.get("id").getAsString() : "");
-            projectDependency.setGroupId(jsonObject.has("groupId") ? jsonObject.get("groupId").getAsString() : "");
-            projectDependency.setArtifactId(jsonObject.has("artifactId") ? jsonObject.get("artifactId").getAsString() : "");
-            projectDependency.setVersion(jsonObject.has("selectedVersion") ? jsonObject.get("selectedVersion").getAsString() : "");
-            projectDependency.setScope(jsonObject.has("scope") ? jsonObject.get("scope").getAsString() : "");
-
-            if (parentDep.getId() != null) {
-                projectDependency.addParentDep(parentDep);
-            } else if (!parentString.isEmpty()) {
-                projectDependency.addParentDep(projectDependenciesMap.get(parentString));
             } else {
-                projectDependency.rootDep = true;
+                reader.endObject();
+                entries.pop();
+                ProjectDependency dependency = resolveDependency(entry);
+                if (entry.bufferedChildren != null) {
+                    readBufferedChildren(entry.bufferedChildren, dependency);
+                }
+                DependencyEntry parentEntry = entries.peek();
+                if (parentEntry != null) {
+                    parentEntry.dependency.addChildDep(dependency);
+                } else if (parentDep != null) {
+                    parentDep.addChildDep(dependency);
+                }
             }
+        }
+        reader.endArray();
+    }
+
+    /**
+     * Starts reading the children of a dependency. The
+     * children of skipped dependencies are skipped as well.
+     * Children preceding the id or scope of their dependency
+     * are buffered until the dependency is resolved.
+     *
+     * @param reader positioned at the children array
+     * @param entry
+     * @throws IOException
+     */
+    private void readChildren(JsonReader reader, DependencyEntry entry) throws IOException {
+        if (entry.id == null || entry.scope == null) {
+            entry.bufferedChildren = JsonParser.parseReader(reader);
+            return;
+        }
+        ProjectDependency dependency = resolveDependency(entry);
+        if (dependency.getId() == null) {
+            reader.skipValue();
+            return;
+        }
+        reader.beginArray();
+        if (reader.hasNext()) {
+            addIndirect(dependency);
+        }
+        entry.readingChildren = true;
+    }
 
-            projectDependency.setReportPath(getJactReportPath() + "dependencies/" + depToDirName(projectDependency) + "/");
+    /**
+     * Reads the buffered children of a resolved dependency.
+     *
+     * @param children   the children array
+     * @param dependency
+     * @throws IOException
+     */
+    private void readBufferedChildren(JsonElement children, ProjectDependency dependency) throws IOException {
+        if (dependency.getId() == null) {
+            return;
+        }
+        if (children.getAsJsonArray().size() > 0) {
+            addIndirect(dependency);
+        }
+        try (JsonReader childReader = new JsonReader(new StringReader(children.toString()))) {
+            readDependencies(childReader, dependency);
+        }
+    }
 
+    /**
+     * Gets the ProjectDependency of a dependency entry, creating it the
+     * first time the dependency is read, and links it to its parent.
+     *
+     * @param entry
+     * @return ProjectDependency, without id if the dependency is skipped
+     */
+    private ProjectDependency resolveDependency(DependencyEntry entry) {
+        if (entry.dependency != null) {
+            return entry.dependency;
+        }
+        String dependencyScope = entry.scope;
+        if ((skipTestDependencies && dependencyScope.equals("test")) || dependencyScope.equals("provided")) {
+            //Skipping provided- and test-scope dependencies
+            entry.dependency = new ProjectDependency();
+            return entry.dependency;
+        }
+        ProjectDependency projectDependency = projectDependenciesMap.get(entry.id);
+        boolean visited = projectDependency != null;
+        if (!visited) {
+            projectDependency = new ProjectDependency();
+            projectDependency.setId(entry.id);
+            projectDependency.setGroupId(entry.groupId);
+            projectDependency.setArtifactId(entry.artifactId);
+            projectDependency.setVersion(entry.version);
+            projectDependency.setScope(entry.scope);
+            projectDependency.setChecksum(entry.checksum);
+        }
+
+        if (entry.parentDep != null) {
+            projectDependency.addParentDep(entry.parentDep);
+        } else if (!entry.parent.isEmpty()) {
+            projectDependency.addParentDep(projectDependenciesMap.get(entry.parent));
+        } else {
+            projectDependency.rootDep = true;
+        }
+
+        if (!visited) {
+            projectDependency.setReportPath(reportPath + "dependencies/" + depToDirName(projectDependency) + "/");
             projectDependenciesMap.put(projectDependency.getId(), projectDependency);
-            JsonArray childrenJsonArray = jsonObject.getAsJsonArray("children");
-            if (!childrenJsonArray.isEmpty()) {
-                addIndirect(projectDependency);
-                for (JsonElement element : childrenJsonArray) {
-                    ProjectDependency child = parseDependency(element.getAsJsonObject(), projectDependency);
-                    projectDependency.addChildDep(child);
-                }
+        }
+        entry.dependency = projectDependency;
+        return projectDependency;
+    }
+
+    /**
+     * A dependency of the lockfile that is being read.
+     */
+    private static class DependencyEntry {
+        // Parent read before this dependency, null for the dependencies of the project
+        private final ProjectDependency parentDep;
+        private String id;
+        private String scope;
+        private String parent = "";
+        private String groupId = "";
+        private String artifactId = "";
+        private String version = "";
+        private String checksum = "";
+        // Set once the dependency is resolved
+        private ProjectDependency dependency;
+        private boolean readingChildren;
+        // Children read before the id and scope of the dependency
+        private JsonElement bufferedChildren;
+
+        private DependencyEntry(ProjectDependency parentDep) {
+            this.parentDep = parentDep;
+        }
+
+        private void readField(JsonReader reader, String name) throws IOException {
+            switch (name) {
+                case "id":
+                    this.id = reader.nextString();
+                    break;
+                case "scope":
+                    this.scope = reader.nextString();
+                    break;
+                case "parent":
+                    this.parent = reader.nextString();
+                    break;
+                case "groupId":
+                    this.groupId = reader.nextString();
+                    break;
+                case "artifactId":
+                    this.artifactId = reader.nextString();
+                    break;
+                case "selectedVersion":
+                    this.version = reader.nextString();
+                    break;
+                case "checksum":
+                    this.checksum = reader.nextString();
+                    break;
+                default:
+                    reader.skipValue();
             }
-            return projectDependency;
         }
     }
 
@@ -136,14 +371,14 @@ public class ProjectDependencies {
      *
      * @param pd
      */
-    private static void addIndirect(ProjectDependency pd) {
+    private void addIndirect(ProjectDependency pd) {
         if (!indirectUsageMap.containsKey(pd.getId())) {
             indirectUsageMap.put(pd.getId(), new DependencyUsage());
         }
     }
 
-    public static Map<String, DependencyUsage> getIndirectUsageMap() {
-        return indirectUsageMap;
+    public Map<String, DependencyUsage> getIndirectUsageMap() {
+        return this.indirectUsageMap;
     }
 
 }
\ No newline at end of file
@@ -1,10 +1,8 @@
 package jact.depUtils;
 
-import java.io.IOException;
 import java.util.HashMap;
 import java.util.Map;
 
-import static jact.core.HtmlAugmenter.writeHTMLStringToFile;
 
 /**
  * Tracks the usage of a dependency.
@@ -17,6 +15,7 @@ public class ProjectDependency {
     private String artifactId;
     private String version;
     private String scope;
+    private String checksum;
     public boolean rootDep = false;
     private Map<String, ProjectDependency> children = new HashMap<>();
     private Map<String, ProjectDependency> parents = new HashMap<>();
@@ -62,6 +61,14 @@ public class ProjectDependency {
         this.scope = scope;
     }
 
+    public String getChecksum() {
+        return this.checksum;
+    }
+
+    public void setChecksum(String checksum) {
+        this.checksum = checksum;
+    }
+
     public void addChildDep(ProjectDependency child) {
         if (!this.children.containsKey(child.getId())) {
             this.children.put(child.getId(), child);
@@ -136,17 +143,6 @@ public class ProjectDependency {
         return sb.toString();
     }
 
-    public void writePackagesToFile(String path, DependencyUsage total) {
-        // Iterate through the map entries
-        for (Map.Entry<String, DependencyUsage> entry : this.packageUsageMap.entrySet()) {
-            try {
-                writeHTMLStringToFile(path + "/index.html", entry.getValue().usageToHTML(entry.getKey(), total, true, false));
-            } catch (IOException e) {
-                throw new RuntimeException(e);
-            }
-        }
-    }
-
     /**
      * Gets the corresponding directory name for a dependency.
      *
@@ -154,14 +150,38 @@ public class ProjectDependency {
      * @return String
      */
     public static String depToDirName(ProjectDependency dependency) {
-        return dependency.getGroupId().replace("-", ".") + "." +
-                dependency.getArtifactId().replace("-", ".") + "-v" + dependency.getVersion();
+        return normalizeDirName(dependency.getGroupId().replace("-", ".") + "." +
+                dependency.getArtifactId().replace("-", ".") + "-v" + dependency.getVersion());
     }
 
     public static String depIdToDirName(String depId) {
         String[] split = depId.split(":");
-        return split[0].replace("-", ".") + "." +
-                split[1].replace("-", ".") + "-v" + split[2];
+        return normalizeDirName(split[0].replace("-", ".") + "." +
+                split[1].replace("-", ".") + "-v" + split[2]);
+    }
+
+    /**
+     * Replaces the characters JaCoCo does not allow in file names
+     * with '_' like JaCoCo does, so the directory JaCoCo writes the
+     * pages of a dependency bundle to has the name JACT uses.
+     *
+     * @param dirName
+     * @return String
+     */
+    private static String normalizeDirName(String dirName) {
+        StringBuilder normalized = null;
+        for (int i = 0; i < dirName.length(); i++) {
+            char c = dirName.charAt(i);
+            boolean legal = (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') ||
+                    c == '$' || c == '-' || c == '.' || c == '_';
+            if (!legal && normalized == null) {
+                normalized = new StringBuilder(dirName.length()).append(dirName, 0, i);
+            }
+            if (normalized != null) {
+                normalized.append(legal ? c : '_');
+            }
+        }
+        return normalized != null ? normalized.toString() : dirName;
     }
 
 }
@@ -1,26 +1,48 @@
 package jact.plugin;
 
+import jact.core.CoverageAnalysis;
+import jact.core.ReportContext;
+import jact.depUtils.PackageIndexCache;
+import jact.depUtils.PackageToDependencyResolver;
+import jact.depUtils.ProjectDependencies;
+import jact.depUtils.ProjectDependency;
+import org.apache.maven.artifact.Artifact;
 import org.apache.maven.execution.MavenSession;
 import org.apache.maven.plugin.AbstractMojo;
 import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.plugins.annotations.Component;
 import org.apache.maven.plugins.annotations.Parameter;
+import org.apache.maven.project.DefaultProjectBuildingRequest;
 import org.apache.maven.project.MavenProject;
+import org.apache.maven.project.ProjectBuildingRequest;
+import org.apache.maven.shared.dependency.graph.DependencyCollectorBuilder;
+import org.apache.maven.shared.dependency.graph.DependencyCollectorBuilderException;
+import org.apache.maven.shared.dependency.graph.DependencyNode;
 
 import java.io.File;
+import java.io.IOException;
+import java.net.URISyntaxException;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Set;
 
+import static jact.utils.CommandExecutor.copyJacocoCliJar;
+import static jact.utils.CommandExecutor.copyPNGImage;
+import static jact.utils.CommandExecutor.executeJacocoCLI;
+import static jact.utils.CommandExecutor.generateDependencyLockfile;
 
+
+/**
+ * Base of the report Mojos. Holds no static state, every
+ * execution works on its own project and report context.
+ */
 public abstract class AbstractReportMojo extends AbstractMojo {
-    private static final String jactReportPath = "./target/jact-report/";
-    private static String localRepoPath;
-    private static String projectGroupId;
-    private static String artifactId;
-    private static String version;
-    private static Map<String, Set<String>> packageClassMap = new HashMap<>();
+    private final Map<String, Set<String>> packageClassMap = new HashMap<>();
+    // Analysis of the dependency jars, made while creating the report context
+    private CoverageAnalysis dependencyJarsAnalysis;
     /**
      * Gives access to the Maven project information.
      */
@@ -32,6 +54,12 @@ public abstract class AbstractReportMojo extends AbstractMojo {
     @Parameter(defaultValue = "${session}", required = true, readonly = true)
     private MavenSession session;
 
+    /**
+     * Collects the dependency graph of the project in-process.
+     */
+    @Component
+    private DependencyCollectorBuilder dependencyCollectorBuilder;
+
     @Parameter(property = "shadedJarName")
     private String shadedJarName;
 
@@ -47,6 +75,61 @@ public abstract class AbstractReportMojo extends AbstractMojo {
     @Parameter(property = "includeSummary", defaultValue = "false")
     private String includeSummary;
 
+    /**
+     * Also write the individual XML report of every
+     * package to `jact_xml_package_reports`.
+     */
+    @Parameter(property = "keepXmlPackageReports", defaultValue = "false")
+    private String keepXmlPackageReports;
+
+    /**
+     * Directory of the persistent dependency package cache.
+     * Can point to a shared location (e.g. on CI agents).
+     * An empty value disables the cache.
+     */
+    @Parameter(property = "packageCacheDir", defaultValue = "${user.home}/.jact/package-cache")
+    private String packageCacheDir;
+
+    /**
+     * Analyze the coverage in-process with the JaCoCo API
+     * instead of running the `jacococli.jar` in a subprocess.
+     */
+    @Parameter(property = "inProcessAnalysis", defaultValue = "true")
+    private String inProcessAnalysis;
+
+    /**
+     * Analyze the classes of the project and the resolved
+     * dependency jars directly, instead of the shaded jar. The
+     * coverage of a class is attributed to the jar it is analyzed
+     * from, so neither the Maven Shade Plugin nor the package
+     * index of the dependency jars is needed. Always in-process.
+     */
+    @Parameter(property = "analyzeDependencyJars", defaultValue = "false")
+    private String analyzeDependencyJars;
+
+    /**
+     * Build the dependency graph in-process from the dependencies
+     * Maven resolved for the project, instead of generating the
+     * lockfile with `maven-lockfile` in a separate Maven process.
+     */
+    @Parameter(property = "inProcessDependencies", defaultValue = "true")
+    private String inProcessDependencies;
+
+    /**
+     * Number of threads used for processing the packages of
+     * the report. Zero (default) uses all available processors.
+     */
+    @Parameter(property = "jactThreads", defaultValue = "0")
+    private String threads;
+
+    /**
+     * Keep the pages of dependencies whose usage did not change
+     * since the previous report instead of rewriting them.
+     * Only has an effect when the report is not cleaned.
+     */
+    @Parameter(property = "incrementalReport", defaultValue = "false")
+    private String incrementalReport;
+
     @Override
     public final void execute()
             throws MojoExecutionException, MojoFailureException {
@@ -65,8 +148,17 @@ public abstract class AbstractReportMojo extends AbstractMojo {
         return Boolean.parseBoolean(this.skipTestDependencies);
     }
 
-    public static String getJactReportPath() {
-        return jactReportPath;
+    /**
+     * Gets the build directory of the project (usually ./target).
+     *
+     * @return String
+     */
+    public String getTargetDirectory() {
+        return this.project.getBuild().getDirectory();
+    }
+
+    public String getJactReportPath() {
+        return getTargetDirectory() + "/jact-report/";
     }
 
     public String getLocalRepoPath() {
@@ -101,6 +193,190 @@ public abstract class AbstractReportMojo extends AbstractMojo {
         return Boolean.parseBoolean(this.includeSummary);
     }
 
+    public boolean getKeepXmlPackageReports() {
+        return Boolean.parseBoolean(this.keepXmlPackageReports);
+    }
+
+    public boolean getInProcessAnalysis() {
+        return Boolean.parseBoolean(this.inProcessAnalysis);
+    }
+
+    public boolean getAnalyzeDependencyJars() {
+        return Boolean.parseBoolean(this.analyzeDependencyJars);
+    }
+
+    public boolean getInProcessDependencies() {
+        return Boolean.parseBoolean(this.inProcessDependencies);
+    }
+
+    public boolean getIncrementalReport() {
+        return Boolean.parseBoolean(this.incrementalReport);
+    }
+
+    public int getThreadCount() {
+        int threadCount = Integer.parseInt(this.threads);
+        if (threadCount <= 0) {
+            return Runtime.getRuntime().availableProcessors();
+        }
+        return threadCount;
+    }
+
+    /**
+     * Creates the JaCoCo reports that JACT augments, either
+     * in-process or with the jacococli subprocess. The
+     * coverage is analyzed once for all requested formats.
+     * The in-process HTML report is written by the HtmlAugmenter,
+     * grouped by dependency, from the returned analysis. When the
+     * dependency jars are analyzed, the analysis made for the
+     * report context is used instead of the shaded jar.
+     *
+     * @param xmlReport
+     * @param htmlReport
+     * @return the coverage analysis when analyzed in-process, otherwise null
+     * @throws MojoExecutionException
+     */
+    protected CoverageAnalysis createJacocoReport(boolean xmlReport, boolean htmlReport)
+            throws MojoExecutionException {
+        if (!getInProcessAnalysis() && this.dependencyJarsAnalysis == null) {
+            getLog().info("Copying the `jacococli.jar` to the project.");
+            try {
+                copyJacocoCliJar(getTargetDirectory());
+            } catch (IOException | URISyntaxException e) {
+                throw new RuntimeException(e);
+            }
+            executeJacocoCLI(getTargetDirectory(), getJactReportPath(), getOutputJarName(), xmlReport, htmlReport);
+            if (htmlReport) {
+                copyJactLogo();
+            }
+            return null;
+        }
+
+        try {
+            CoverageAnalysis analysis = this.dependencyJarsAnalysis != null ? this.dependencyJarsAnalysis :
+                    CoverageAnalysis.analyze(getTargetDirectory() + "/jacoco.exec",
+                            getTargetDirectory() + "/" + getOutputJarName() + ".jar");
+            if (xmlReport) {
+                analysis.writeXmlReport(getJactReportPath() + "jacoco_report.xml");
+            }
+            if (htmlReport) {
+                copyJactLogo();
+            }
+            return analysis;
+        } catch (IOException e) {
+            throw new MojoExecutionException("Error analyzing the coverage of " + getOutputJarName(), e);
+        }
+    }
+
+    private void copyJactLogo() throws MojoExecutionException {
+        try {
+            copyPNGImage("jact-logo.png", getJactReportPath() + "jacoco-resources");
+        } catch (IOException e) {
+            throw new MojoExecutionException("Error copying the JACT logo", e);
+        }
+    }
+
+    /**
+     * Builds the dependency graph of the project and creates
+     * the context of this report execution: the dependencies,
+     * their package index and the project packages. When the
+     * dependency jars are analyzed, the packages are resolved
+     * with the classes of the analyzed jars instead.
+     *
+     * @return ReportContext
+     * @throws MojoExecutionException
+     */
+    protected ReportContext createReportContext() throws MojoExecutionException {
+        ProjectDependencies projectDependencies = new ProjectDependencies(getJactReportPath(), getDepFilterParam());
+        // MavenProject returns the resolved artifacts as a raw Set
+        @SuppressWarnings("unchecked")
+        Set<Artifact> artifacts = this.project.getArtifacts();
+        Map<String, ProjectDependency> dependenciesMap;
+        if (getInProcessDependencies()) {
+            dependenciesMap = projectDependencies.getAllProjectDependencies(collectDependencyGraph(), artifacts);
+        } else {
+            generateDependencyLockfile(this.project.getBasedir(), getJactReportPath());
+            dependenciesMap = projectDependencies.getAllProjectDependencies(getJactReportPath());
+        }
+
+        PackageToDependencyResolver resolver;
+        if (getAnalyzeDependencyJars()) {
+            this.dependencyJarsAnalysis = analyzeDependencyJars(dependenciesMap, artifacts);
+            resolver = new PackageToDependencyResolver(this.dependencyJarsAnalysis.getClassDependencies());
+        } else {
+            PackageIndexCache packageIndexCache = null;
+            if (this.packageCacheDir != null && !this.packageCacheDir.isEmpty()) {
+                packageIndexCache = new PackageIndexCache(this.packageCacheDir);
+            }
+            resolver = new PackageToDependencyResolver(dependenciesMap, getLocalRepoPath(), packageIndexCache,
+                    getThreadCount());
+        }
+
+        return new ReportContext(getJactReportPath(), getProjId(), getProjectPackagesAndClasses(),
+                dependenciesMap, projectDependencies.getIndirectUsageMap(), resolver, getThreadCount());
+    }
+
+    /**
+     * Analyzes the coverage of the project classes and of the jar
+     * Maven resolved for every dependency. The jars are analyzed in
+     * the order Maven resolved them, the order the shade plugin adds
+     * them to the Uber-jar, so a class contained in several jars is
+     * attributed to the jar it would be shaded from.
+     *
+     * @param dependenciesMap
+     * @param artifacts       the resolved dependencies of the project
+     * @return CoverageAnalysis
+     * @throws MojoExecutionException
+     */
+    private CoverageAnalysis analyzeDependencyJars(Map<String, ProjectDependency> dependenciesMap,
+                                                   Set<Artifact> artifacts) throws MojoExecutionException {
+        Map<ProjectDependency, File> dependencyJars = new LinkedHashMap<>();
+        for (Artifact artifact : artifacts) {
+            File file = artifact.getFile();
+            // Attached artifacts (e.g. test jars) are not part of the dependency
+            boolean classified = artifact.getClassifier() != null && !artifact.getClassifier().isEmpty();
+            if (classified || file == null || !file.isFile() || !file.getName().endsWith(".jar")) {
+                continue;
+            }
+            // The id of a snapshot has its base version, not the timestamped one of the jar
+            ProjectDependency dependency = dependenciesMap.get(artifact.getGroupId() + ":" +
+                    artifact.getArtifactId() + ":" + artifact.getBaseVersion());
+            if (dependency != null) {
+                dependencyJars.putIfAbsent(dependency, file);
+            }
+        }
+        for (ProjectDependency dependency : dependenciesMap.values()) {
+            if (!dependencyJars.containsKey(dependency)) {
+                getLog().warn("No jar to analyze for " + dependency.getId());
+            }
+        }
+
+        getLog().info("Analyzing the project classes and " + dependencyJars.size() + " dependency jars.");
+        try {
+            return CoverageAnalysis.analyze(getTargetDirectory() + "/jacoco.exec",
+                    this.project.getBuild().getOutputDirectory(), dependencyJars);
+        } catch (IOException e) {
+            throw new MojoExecutionException("Error analyzing the coverage of " + getProjId(), e);
+        }
+    }
+
+    /**
+     * Collects the verbose dependency graph of the project,
+     * including repeated dependencies and conflicts.
+     *
+     * @return the node of the project
+     * @throws MojoExecutionException
+     */
+    private DependencyNode collectDependencyGraph() throws MojoExecutionException {
+        ProjectBuildingRequest buildingRequest =
+                new DefaultProjectBuildingRequest(this.session.getProjectBuildingRequest());
+        buildingRequest.setProject(this.project);
+        try {
+            return this.dependencyCollectorBuilder.collectDependencyGraph(buildingRequest, null);
+        } catch (DependencyCollectorBuilderException e) {
+            throw new MojoExecutionException("Error collecting the dependencies of " + getProjId(), e);
+        }
+    }
+
     public String getOutputJarName() {
         if (shadedJarName == null) {
             shadedJarName = this.project.getBuild().getFinalName() + "-shaded";
@@ -120,7 +396,7 @@ public abstract class AbstractReportMojo extends AbstractMojo {
         scanForClassesAndPackages(new File(classesDirectory), "");
     }
 
-    private static void scanForClassesAndPackages(File directory, String parentPackage) {
+    private void scanForClassesAndPackages(File directory, String parentPackage) {
         for (File file : directory.listFiles()) {
             if (file.isDirectory()) {
                 String currentPackage = parentPackage.isEmpty() ? file.getName() : parentPackage + "." + file.getName();
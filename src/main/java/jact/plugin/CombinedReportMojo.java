@@ -1,21 +1,18 @@
 package jact.plugin;
 
-import jact.depUtils.ProjectDependencies;
-import jact.depUtils.ProjectDependency;
+import jact.core.CoverageAnalysis;
+import jact.core.HtmlAugmenter;
+import jact.core.ReportContext;
+import jact.core.XmlAugmenter;
 import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugins.annotations.LifecyclePhase;
 import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.ResolutionScope;
 
 import java.io.IOException;
-import java.net.URISyntaxException;
 import java.util.Map;
 import java.util.Set;
 
-import static jact.core.HtmlAugmenter.generateHtmlReport;
-import static jact.core.XmlAugmenter.generateXmlReport;
-import static jact.utils.CommandExecutor.copyJacocoCliJar;
-import static jact.utils.CommandExecutor.executeJacocoCLI;
-
 
 /**
  * JACT Combined Report:
@@ -23,7 +20,8 @@ import static jact.utils.CommandExecutor.executeJacocoCLI;
  * dependencies along with their indirect dependencies.
  * This Mojo generates both the HTML and XML reports.
  */
-@Mojo(name = "combined-report", defaultPhase = LifecyclePhase.INSTALL, threadSafe = false)
+@Mojo(name = "combined-report", defaultPhase = LifecyclePhase.INSTALL, threadSafe = true,
+        requiresDependencyResolution = ResolutionScope.TEST)
 public class CombinedReportMojo extends AbstractReportMojo {
 
     @Override
@@ -40,35 +38,31 @@ public class CombinedReportMojo extends AbstractReportMojo {
 
 
         getLog().info("STARTING: JACT - Java Absolute Coverage Tracker");
-        getLog().info("JARNAME: " + getOutputJarName());
-
-        getLog().info("Copying the `jacococli.jar` to the project.");
-        try {
-            copyJacocoCliJar();
-        } catch (IOException e) {
-            throw new RuntimeException(e);
-        } catch (URISyntaxException e) {
-            throw new RuntimeException(e);
+        if (!getAnalyzeDependencyJars()) {
+            getLog().info("JARNAME: " + getOutputJarName());
         }
 
-        // XML VERSION:
-        Map<String, ProjectDependency> projectDependenciesMapXML =
-                ProjectDependencies.getAllProjectDependencies(getJactReportPath(), true, getDepFilterParam());
+        // The dependencies are loaded once and shared by both reports, so
+        // that every package is resolved against the same package index.
+        ReportContext context = createReportContext();
+
+        // Analyze the coverage once for both report formats
+        getLog().info("Creating the complete XML and HTML coverage reports.");
+        CoverageAnalysis analysis = createJacocoReport(true, true);
 
-        getLog().info("Creating the complete XML coverage report.");
-        executeJacocoCLI(getOutputJarName(), false);
+        // XML VERSION:
         getLog().info("Organizing the complete XML coverage report.");
-        generateXmlReport(projectDependenciesMapXML, getProjectPackagesAndClasses(), getLocalRepoPath(), getProjId());
+        try {
+            new XmlAugmenter(context).generateXmlReport(getKeepXmlPackageReports());
+        } catch (IOException e) {
+            throw new MojoExecutionException("Error writing the XML report of " + getProjId(), e);
+        }
         getLog().info("JACT: XML Report Successfully Generated!");
 
         // HTML VERSION:
-        Map<String, ProjectDependency> projectDependenciesMapHTML =
-                ProjectDependencies.getAllProjectDependencies(getJactReportPath(), false, getDepFilterParam());
-        getLog().info("Creating the complete HTML coverage report.");
-        executeJacocoCLI(getOutputJarName(), true);
-
         getLog().info("Organizing the complete HTML coverage report.");
-        generateHtmlReport(projectDependenciesMapHTML, getProjectPackagesAndClasses(), getLocalRepoPath(), getProjId(), getSummaryProperty());
+        new HtmlAugmenter(context).generateHtmlReport(getSummaryProperty(), getIncrementalReport(),
+                analysis);
         getLog().info("JACT: HTML Report Successfully Generated!");
     }
 }
\ No newline at end of file
@@ -1,27 +1,24 @@
 package jact.plugin;
 
-import jact.depUtils.ProjectDependencies;
-import jact.depUtils.ProjectDependency;
+import jact.core.CoverageAnalysis;
+import jact.core.HtmlAugmenter;
+import jact.core.ReportContext;
 import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugins.annotations.LifecyclePhase;
 import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.ResolutionScope;
 
-import java.io.IOException;
-import java.net.URISyntaxException;
 import java.util.Map;
 import java.util.Set;
 
-import static jact.core.HtmlAugmenter.generateHtmlReport;
-import static jact.utils.CommandExecutor.copyJacocoCliJar;
-import static jact.utils.CommandExecutor.executeJacocoCLI;
-
 
 /**
  * JACT HTML Report:
  * Generates a complete code coverage report including all
  * dependencies along with their indirect dependencies.
  */
-@Mojo(name = "html-report", defaultPhase = LifecyclePhase.INSTALL, threadSafe = false)
+@Mojo(name = "html-report", defaultPhase = LifecyclePhase.INSTALL, threadSafe = true,
+        requiresDependencyResolution = ResolutionScope.TEST)
 public class HtmlReportMojo extends AbstractReportMojo {
 
     @Override
@@ -37,25 +34,18 @@ public class HtmlReportMojo extends AbstractReportMojo {
         }
 
         getLog().info("STARTING: JACT - Java Absolute Coverage Tracker");
-        getLog().info("JARNAME: " + getOutputJarName());
-
-        Map<String, ProjectDependency> projectDependenciesMap =
-                ProjectDependencies.getAllProjectDependencies(getJactReportPath(), true, getDepFilterParam());
-
-        // Execute JaCoCoCLI to create the report WITH dependencies
-        getLog().info("Copying the `jacococli.jar` to the project.");
-        try {
-            copyJacocoCliJar();
-        } catch (IOException e) {
-            throw new RuntimeException(e);
-        } catch (URISyntaxException e) {
-            throw new RuntimeException(e);
+        if (!getAnalyzeDependencyJars()) {
+            getLog().info("JARNAME: " + getOutputJarName());
         }
 
+        ReportContext context = createReportContext();
+
+        // Create the JaCoCo report WITH dependencies
         getLog().info("Creating the complete HTML coverage report.");
-        executeJacocoCLI(getOutputJarName(), true);
+        CoverageAnalysis analysis = createJacocoReport(false, true);
         getLog().info("Organizing the complete HTML coverage report.");
-        generateHtmlReport(projectDependenciesMap, getProjectPackagesAndClasses(), getLocalRepoPath(), getProjId(), getSummaryProperty());
+        new HtmlAugmenter(context).generateHtmlReport(getSummaryProperty(), getIncrementalReport(),
+                analysis);
         getLog().info("JACT: HTML Report Successfully Generated!");
     }
 }
\ No newline at end of file
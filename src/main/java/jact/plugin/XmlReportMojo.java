@@ -1,27 +1,24 @@
 package jact.plugin;
 
-import jact.depUtils.ProjectDependencies;
-import jact.depUtils.ProjectDependency;
+import jact.core.ReportContext;
+import jact.core.XmlAugmenter;
 import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugins.annotations.LifecyclePhase;
 import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.ResolutionScope;
 
 import java.io.IOException;
-import java.net.URISyntaxException;
 import java.util.Map;
 import java.util.Set;
 
-import static jact.core.XmlAugmenter.generateXmlReport;
-import static jact.utils.CommandExecutor.copyJacocoCliJar;
-import static jact.utils.CommandExecutor.executeJacocoCLI;
-
 
 /**
  * JACT XML Report:
  * Generates a complete code coverage report including all
  * dependencies along with their indirect dependencies.
  */
-@Mojo(name = "xml-report", defaultPhase = LifecyclePhase.INSTALL, threadSafe = false)
+@Mojo(name = "xml-report", defaultPhase = LifecyclePhase.INSTALL, threadSafe = true,
+        requiresDependencyResolution = ResolutionScope.TEST)
 public class XmlReportMojo extends AbstractReportMojo {
 
     @Override
@@ -38,27 +35,23 @@ public class XmlReportMojo extends AbstractReportMojo {
 
 
         getLog().info("STARTING: JACT - Java Absolute Coverage Tracker");
-        getLog().info("JARNAME: " + getOutputJarName());
+        if (!getAnalyzeDependencyJars()) {
+            getLog().info("JARNAME: " + getOutputJarName());
+        }
         //String outputDirectory = project.getBuild().getOutputDirectory();
 
 
-        Map<String, ProjectDependency> projectDependenciesMap =
-                ProjectDependencies.getAllProjectDependencies(getJactReportPath(), true, getDepFilterParam());
+        ReportContext context = createReportContext();
 
-        // Execute JaCoCoCLI to create the report WITH dependencies
-        getLog().info("Copying the `jacococli.jar` to the project.");
+        // Create the JaCoCo report WITH dependencies
+        getLog().info("Creating the complete XML coverage report.");
+        createJacocoReport(true, false);
+        getLog().info("Organizing the complete XML coverage report.");
         try {
-            copyJacocoCliJar();
+            new XmlAugmenter(context).generateXmlReport(getKeepXmlPackageReports());
         } catch (IOException e) {
-            throw new RuntimeException(e);
-        } catch (URISyntaxException e) {
-            throw new RuntimeException(e);
+            throw new MojoExecutionException("Error writing the XML report of " + getProjId(), e);
         }
-
-        getLog().info("Creating the complete XML coverage report.");
-        executeJacocoCLI(getOutputJarName(), false);
-        getLog().info("Organizing the complete XML coverage report.");
-        generateXmlReport(projectDependenciesMap, getProjectPackagesAndClasses(), getLocalRepoPath(), getProjId());
         getLog().info("JACT: XML Report Successfully Generated!");
     }
 }
\ No newline at end of file
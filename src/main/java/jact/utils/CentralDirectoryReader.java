@@ -0,0 +1,171 @@
+package jact.utils;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+
+/**
+ * Lists the class files of a jar by walking its ZIP central
+ * directory in a memory mapped file. Unlike `ZipFile` no entry
+ * objects are created: names are compared as bytes and only the
+ * names of class files are decoded.
+ */
+public class CentralDirectoryReader {
+    private static final int END_SIGNATURE = 0x06054b50;
+    private static final int END_SIZE = 22;
+    private static final int ZIP64_LOCATOR_SIGNATURE = 0x07064b50;
+    private static final int ZIP64_LOCATOR_SIZE = 20;
+    private static final int ZIP64_END_SIGNATURE = 0x06064b50;
+    private static final int ENTRY_SIGNATURE = 0x02014b50;
+    private static final int ENTRY_HEADER_SIZE = 46;
+    private static final int MAX_COMMENT_LENGTH = 0xFFFF;
+
+    private static final byte[] CLASS_SUFFIX = ".class".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] META_INF_PREFIX = "META-INF/".getBytes(StandardCharsets.US_ASCII);
+
+    private CentralDirectoryReader() {
+    }
+
+    /**
+     * Adds the internal names (e.g. `org/example/Foo`) of all
+     * class files in named packages to the given collection.
+     * Entries under META-INF (e.g. multi-release classes) are
+     * skipped.
+     *
+     * @param jarFile
+     * @param classes
+     * @throws IOException if the file is not a readable ZIP file (or larger than 2 GB)
+     */
+    public static void readClassNames(File jarFile, Collection<String> classes) throws IOException {
+        try (FileChannel channel = FileChannel.open(jarFile.toPath(), StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < END_SIZE) {
+                throw new IOException("Not a ZIP file: " + jarFile);
+            }
+            // A single mapping is limited to 2 GB
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("ZIP file too large to map: " + jarFile);
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+
+            int endOffset = findEndOfCentralDirectory(buffer);
+            if (endOffset < 0) {
+                throw new IOException("No ZIP central directory found: " + jarFile);
+            }
+            long entryCount = buffer.getShort(endOffset + 10) & 0xFFFFL;
+            long directoryOffset = buffer.getInt(endOffset + 16) & 0xFFFFFFFFL;
+            // Archives with too many entries or too large for the
+            // classic format keep the real values in the ZIP64 record
+            if (entryCount == 0xFFFFL || directoryOffset == 0xFFFFFFFFL) {
+                int locatorOffset = endOffset - ZIP64_LOCATOR_SIZE;
+                if (locatorOffset < 0 || buffer.getInt(locatorOffset) != ZIP64_LOCATOR_SIGNATURE) {
+                    throw new IOException("Invalid ZIP64 archive: " + jarFile);
+                }
+                long zip64EndOffset = buffer.getLong(locatorOffset + 8);
+                if (zip64EndOffset < 0 || zip64EndOffset > size - 56 ||
+                        buffer.getInt((int) zip64EndOffset) != ZIP64_END_SIGNATURE) {
+                    throw new IOException("Invalid ZIP64 archive: " + jarFile);
+                }
+                entryCount = buffer.getLong((int) zip64EndOffset + 32);
+                directoryOffset = buffer.getLong((int) zip64EndOffset + 48);
+            }
+            readEntries(buffer, directoryOffset, entryCount, jarFile, classes);
+        }
+    }
+
+    /**
+     * Searches the end of central directory record backwards,
+     * as it is followed by a comment of variable length.
+     *
+     * @return the offset of the record or -1 if there is none
+     */
+    private static int findEndOfCentralDirectory(MappedByteBuffer buffer) {
+        int limit = buffer.limit();
+        int minOffset = Math.max(0, limit - END_SIZE - MAX_COMMENT_LENGTH);
+        for (int offset = limit - END_SIZE; offset >= minOffset; offset--) {
+            if (buffer.getInt(offset) == END_SIGNATURE &&
+                    offset + END_SIZE + (buffer.getShort(offset + 20) & 0xFFFF) == limit) {
+                return offset;
+            }
+        }
+        return -1;
+    }
+
+    private static void readEntries(MappedByteBuffer buffer, long directoryOffset, long entryCount, File jarFile,
+                                    Collection<String> classes) throws IOException {
+        int limit = buffer.limit();
+        if (directoryOffset < 0 || directoryOffset > limit) {
+            throw new IOException("Invalid ZIP central directory offset: " + jarFile);
+        }
+        // Reused for decoding the names of class files
+        byte[] nameBytes = new byte[256];
+        int offset = (int) directoryOffset;
+        for (long i = 0; i < entryCount; i++) {
+            if (offset > limit - ENTRY_HEADER_SIZE || buffer.getInt(offset) != ENTRY_SIGNATURE) {
+                throw new IOException("Invalid ZIP central directory entry: " + jarFile);
+            }
+            int nameLength = buffer.getShort(offset + 28) & 0xFFFF;
+            int extraLength = buffer.getShort(offset + 30) & 0xFFFF;
+            int commentLength = buffer.getShort(offset + 32) & 0xFFFF;
+            int nameOffset = offset + ENTRY_HEADER_SIZE;
+            if (nameOffset + nameLength > limit) {
+                throw new IOException("Invalid ZIP central directory entry: " + jarFile);
+            }
+
+            int classNameLength = nameLength - CLASS_SUFFIX.length;
+            if (classNameLength > 0 && endsWith(buffer, nameOffset, nameLength, CLASS_SUFFIX) &&
+                    !startsWith(buffer, nameOffset, nameLength, META_INF_PREFIX) &&
+                    hasPackage(buffer, nameOffset, classNameLength)) {
+                if (nameBytes.length < classNameLength) {
+                    nameBytes = new byte[classNameLength * 2];
+                }
+                for (int j = 0; j < classNameLength; j++) {
+                    nameBytes[j] = buffer.get(nameOffset + j);
+                }
+                classes.add(new String(nameBytes, 0, classNameLength, StandardCharsets.UTF_8));
+            }
+            offset = nameOffset + nameLength + extraLength + commentLength;
+        }
+    }
+
+    private static boolean endsWith(MappedByteBuffer buffer, int nameOffset, int nameLength, byte[] suffix) {
+        int start = nameOffset + nameLength - suffix.length;
+        for (int i = 0; i < suffix.length; i++) {
+            if (buffer.get(start + i) != suffix[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean startsWith(MappedByteBuffer buffer, int nameOffset, int nameLength, byte[] prefix) {
+        if (nameLength < prefix.length) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length; i++) {
+            if (buffer.get(nameOffset + i) != prefix[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Checks for a '/' after the first character,
+     * i.e. the class is not in the unnamed package.
+     */
+    private static boolean hasPackage(MappedByteBuffer buffer, int nameOffset, int nameLength) {
+        for (int i = 1; i < nameLength; i++) {
+            if (buffer.get(nameOffset + i) == '/') {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -13,16 +13,17 @@ import java.util.jar.JarInputStream;
 
 
 public class CommandExecutor {
-    public static String hostOS = System.getProperty("os.name").toLowerCase();
+    public static final String hostOS = System.getProperty("os.name").toLowerCase();
 
     /**
      * Copies the jacoco cli jar for generating the jacoco
      * report before augmenting it.
      *
+     * @param targetDirectory the build directory of the project
      * @throws IOException
      * @throws URISyntaxException
      */
-    public static void copyJacocoCliJar() throws IOException, URISyntaxException {
+    public static void copyJacocoCliJar(String targetDirectory) throws IOException, URISyntaxException {
         // Get the path to the plugin JAR file
         Path pluginJarPath = Paths.get(AbstractReportMojo.class.getProtectionDomain().getCodeSource().getLocation().toURI());
 
@@ -34,11 +35,11 @@ public class CommandExecutor {
                 // Look for jacococli.jar entry
                 if (jarEntry.getName().equals("jacococli.jar")) {
                     // Prepare the target directory
-                    Path targetDirectory = Paths.get("target", "jact-resources");
-                    Files.createDirectories(targetDirectory);
+                    Path resourcesDirectory = Paths.get(targetDirectory, "jact-resources");
+                    Files.createDirectories(resourcesDirectory);
 
                     // Define the target file path
-                    Path targetPath = targetDirectory.resolve("jacococli.jar");
+                    Path targetPath = resourcesDirectory.resolve("jacococli.jar");
 
                     // Copy the entry to the target directory
                     try (OutputStream outputStream = Files.newOutputStream(targetPath)) {
@@ -139,9 +140,10 @@ public class CommandExecutor {
      * Generates the dependency lockfile for identifying
      * all dependencies in the project and their heritage.
      *
+     * @param projectDirectory the base directory of the project
      * @param targetDirectory
      */
-    public static void generateDependencyLockfile(String targetDirectory) {
+    public static void generateDependencyLockfile(File projectDirectory, String targetDirectory) {
         try {
             // Command to be executed
             String command = "mvn io.github.chains-project:maven-lockfile:generate -Dreduced=true";
@@ -156,6 +158,7 @@ public class CommandExecutor {
                 // No support for macOS currently
                 throw new RuntimeException("Could not identify operating system for lock file generation.");
             }
+            processBuilder.directory(projectDirectory);
 
             // Redirect error stream to output stream
             processBuilder.redirectErrorStream(true);
@@ -176,8 +179,8 @@ public class CommandExecutor {
             System.out.println("Exit Code: " + exitCode);
             System.out.println("Output:\n" + output);
 
-            // Move the generated lockfile.json to ./target/jact-report/lockfile.json
-            File sourceFile = new File("./lockfile.json");
+            // Move the generated lockfile.json to the report directory
+            File sourceFile = new File(projectDirectory, "lockfile.json");
             File targetDir = new File(targetDirectory);
             if (!targetDir.exists()) {
                 targetDir.mkdirs();
@@ -207,18 +210,29 @@ public class CommandExecutor {
     }
 
 
-    public static void executeJacocoCLI(String jarName, boolean htmlReport) throws MojoExecutionException {
+    /**
+     * Runs the jacococli report command, creating the
+     * requested report formats in a single execution.
+     *
+     * @param targetDirectory the build directory of the project
+     * @param reportPath      the JACT report directory
+     * @param jarName
+     * @param xmlReport
+     * @param htmlReport
+     * @throws MojoExecutionException
+     */
+    public static void executeJacocoCLI(String targetDirectory, String reportPath, String jarName,
+                                        boolean xmlReport, boolean htmlReport) throws MojoExecutionException {
         try {
-            // Retrieve the URL to the jacococli.jar file
             // Command to execute Jacoco CLI
-            String command;
+            String command = "java -jar " + quote(targetDirectory + "/jact-resources/jacococli.jar") +
+                    " report " + quote(targetDirectory + "/jacoco.exec") +
+                    " --classfiles " + quote(targetDirectory + "/" + jarName + ".jar");
+            if (xmlReport) {
+                command += " --xml " + quote(reportPath + "jacoco_report.xml");
+            }
             if (htmlReport) {
-                command = String.format("java -jar ./target/jact-resources/jacococli.jar report ./target/jacoco.exec " +
-                        "--classfiles " + "./target/" + jarName + ".jar --html ./target/jact-report");
-            } else {
-                // XML report:
-                command = String.format("java -jar ./target/jact-resources/jacococli.jar report ./target/jacoco.exec " +
-                        "--classfiles " + "./target/" + jarName + ".jar --xml ./target/jact-report/jacoco_report.xml");
+                command += " --html " + quote(reportPath);
             }
 
 
@@ -250,9 +264,12 @@ public class CommandExecutor {
             // Print the output
             InputStream inputStream = process.getInputStream();
             String output = readInputStream(inputStream);
-            copyPNGImage("jact-logo.png", "./target/jact-report/jacoco-resources");
         } catch (IOException | InterruptedException e) {
             throw new MojoExecutionException("Error executing Jacoco CLI", e);
         }
     }
+
+    private static String quote(String path) {
+        return "\"" + path + "\"";
+    }
 }
@@ -0,0 +1,227 @@
+package jact.test.core;
+
+import jact.core.CoverageAnalysis;
+import jact.depUtils.DependencyUsage;
+import jact.depUtils.ProjectDependency;
+import org.jacoco.core.analysis.CoverageNodeImpl;
+import org.jacoco.core.analysis.IBundleCoverage;
+import org.jacoco.core.analysis.IClassCoverage;
+import org.jacoco.core.analysis.ICoverageNode;
+import org.jacoco.core.data.ExecutionDataWriter;
+import org.jacoco.core.internal.analysis.CounterImpl;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static jact.utils.FileSystemUtils.removeDirectory;
+import static junit.framework.TestCase.assertEquals;
+import static junit.framework.TestCase.assertFalse;
+import static junit.framework.TestCase.assertTrue;
+
+public class CoverageAnalysisTest {
+    static String testDirectory = "./src/test/java/jact/test/testingDir/";
+
+    @AfterAll
+    public static void cleanUpTestDirs() {
+        removeDirectory(new File(testDirectory));
+        Assertions.assertFalse(new File(testDirectory).exists());
+    }
+
+    /**
+     * Analyzes two classes of different packages
+     * without any execution data.
+     */
+    private static CoverageAnalysis analyzeClasses() throws IOException {
+        File classesDir = new File(testDirectory, "classes");
+        for (String className : Arrays.asList("jact/core/HtmlPage", "jact/depUtils/DependencyUsage")) {
+            File classFile = new File(classesDir, className + ".class");
+            classFile.getParentFile().mkdirs();
+            Files.copy(new File("./target/classes/" + className + ".class").toPath(), classFile.toPath());
+        }
+        File execFile = writeEmptyExecFile("jacoco.exec");
+        return CoverageAnalysis.analyze(execFile.getPath(), classesDir.getPath());
+    }
+
+    @Test
+    /**
+     * Requirements: A coverage node with known counters.
+     * Contract:
+     *      Pre-condition: Every counter of the node has a distinct
+     *                     missed and covered count.
+     *     Post-condition: The resulting DependencyUsage holds the missed
+     *                     and total (missed + covered) count of each counter.
+     */
+    public void toDependencyUsageTest() {
+        ICoverageNode node = new CoverageNodeImpl(ICoverageNode.ElementType.PACKAGE, "org/example") {
+            {
+                instructionCounter = CounterImpl.getInstance(10, 30);
+                branchCounter = CounterImpl.getInstance(2, 6);
+                lineCounter = CounterImpl.getInstance(3, 9);
+                complexityCounter = CounterImpl.getInstance(4, 5);
+                methodCounter = CounterImpl.getInstance(1, 7);
+                classCounter = CounterImpl.getInstance(0, 2);
+            }
+        };
+
+        DependencyUsage usage = CoverageAnalysis.toDependencyUsage(node);
+        assertEquals(10, usage.getMissedInstructions());
+        assertEquals(40, usage.getTotalInstructions());
+        assertEquals(2, usage.getMissedBranches());
+        assertEquals(8, usage.getTotalBranches());
+        assertEquals(3, usage.getMissedLines());
+        assertEquals(12, usage.getTotalLines());
+        assertEquals(4, usage.getMissedCyclomaticComplexity());
+        assertEquals(9, usage.getCyclomaticComplexity());
+        assertEquals(1, usage.getMissedMethods());
+        assertEquals(8, usage.getTotalMethods());
+        assertEquals(0, usage.getMissedClasses());
+        assertEquals(2, usage.getTotalClasses());
+    }
+
+    @Test
+    /**
+     * Requirements: The analyzed classes of two packages.
+     * Contract:
+     *      Pre-condition: Every class is put in the bundle of its own
+     *                     "dependency", and both are written as a group.
+     *     Post-condition: The package pages are written once, into the
+     *                     directory of their bundle, and refer to the
+     *                     resources of the group directory. The package
+     *                     counters match those of the complete analysis.
+     */
+    public void groupedHtmlReportTest() throws IOException {
+        CoverageAnalysis analysis = analyzeClasses();
+        List<IBundleCoverage> bundles = new ArrayList<>();
+        for (IClassCoverage classCoverage : analysis.getClasses()) {
+            String depDirName = classCoverage.getPackageName().endsWith("core") ? "dep.a-v1" : "dep.b-v1";
+            bundles.add(CoverageAnalysis.createBundle(depDirName, Arrays.asList(classCoverage)));
+        }
+        assertEquals(2, bundles.size());
+        for (IBundleCoverage bundle : bundles) {
+            assertEquals(1, bundle.getPackages().size());
+            assertEquals(bundle.getPackages().iterator().next().getInstructionCounter().getTotalCount(),
+                    bundle.getInstructionCounter().getTotalCount());
+        }
+
+        String dependenciesDir = testDirectory + "dependencies";
+        analysis.writeGroupedHtmlReport(dependenciesDir, "Dependencies", bundles);
+        File packagePage = new File(dependenciesDir + "/dep.a-v1/jact.core/index.html");
+        assertTrue(packagePage.exists());
+        assertTrue(new File(dependenciesDir + "/dep.b-v1/jact.depUtils/index.html").exists());
+        assertTrue(new File(dependenciesDir + "/jacoco-resources/report.css").exists());
+        assertFalse(new File(dependenciesDir + "/dep.a-v1/jacoco-resources").exists());
+        assertFalse(new File(dependenciesDir + "/dep.a-v1/jact.depUtils").exists());
+
+        String page = new String(Files.readAllBytes(packagePage.toPath()), StandardCharsets.UTF_8);
+        assertTrue(page.contains("../../jacoco-resources/report.css"));
+        // Breadcrumbs: group, then bundle
+        assertTrue(page.contains("href=\"../../index.html\""));
+        assertTrue(page.contains("href=\"../index.html\""));
+    }
+
+    @Test
+    /**
+     * Requirements: Nothing.
+     * Contract:
+     *      Pre-condition: A class of the project is also contained in the
+     *                     jar of a dependency, next to a class of its own.
+     *     Post-condition: Both classes are analyzed once, the project class
+     *                     is kept for the project and only the other class
+     *                     is attributed to the dependency.
+     */
+    public void dependencyJarsAnalysisTest() throws IOException {
+        File classesDir = new File(testDirectory, "project-classes/jact/core");
+        classesDir.mkdirs();
+        Files.copy(new File("./target/classes/jact/core/HtmlPage.class").toPath(),
+                new File(classesDir, "HtmlPage.class").toPath());
+        File jarFile = writeClassJar("dependency.jar", "jact/core/HtmlPage", "jact/depUtils/DependencyUsage");
+        File execFile = writeEmptyExecFile("dependency.exec");
+
+        ProjectDependency dependency = new ProjectDependency();
+        dependency.setId("org.example:dependency:1.0");
+        Map<ProjectDependency, File> dependencyJars = new HashMap<>();
+        dependencyJars.put(dependency, jarFile);
+        CoverageAnalysis analysis = CoverageAnalysis.analyze(execFile.getPath(),
+                testDirectory + "project-classes", dependencyJars);
+
+        assertEquals(2, analysis.getClasses().size());
+        assertEquals(1, analysis.getClassDependencies().size());
+        assertEquals(dependency, analysis.getClassDependencies().get("jact/depUtils/DependencyUsage"));
+        assertFalse(analysis.getClassDependencies().containsKey("jact/core/HtmlPage"));
+    }
+
+    @Test
+    /**
+     * Requirements: Nothing.
+     * Contract:
+     *      Pre-condition: The jars of two dependencies contain the same
+     *                     class and are analyzed in both orders.
+     *     Post-condition: The class is analyzed once and attributed to
+     *                     the dependency whose jar comes first.
+     */
+    public void duplicateDependencyClassTest() throws IOException {
+        File firstJar = writeClassJar("first.jar", "jact/depUtils/CounterType");
+        File secondJar = writeClassJar("second.jar", "jact/depUtils/CounterType");
+        File execFile = writeEmptyExecFile("duplicate.exec");
+        ProjectDependency first = new ProjectDependency();
+        first.setId("org.example:first:1.0");
+        ProjectDependency second = new ProjectDependency();
+        second.setId("org.example:second:1.0");
+
+        Map<ProjectDependency, File> dependencyJars = new LinkedHashMap<>();
+        dependencyJars.put(first, firstJar);
+        dependencyJars.put(second, secondJar);
+        CoverageAnalysis analysis = CoverageAnalysis.analyze(execFile.getPath(),
+                testDirectory + "no-project-classes", dependencyJars);
+        assertEquals(1, analysis.getClasses().size());
+        assertEquals(first, analysis.getClassDependencies().get("jact/depUtils/CounterType"));
+
+        Map<ProjectDependency, File> reversedJars = new LinkedHashMap<>();
+        reversedJars.put(second, secondJar);
+        reversedJars.put(first, firstJar);
+        CoverageAnalysis reversedAnalysis = CoverageAnalysis.analyze(execFile.getPath(),
+                testDirectory + "no-project-classes", reversedJars);
+        assertEquals(1, reversedAnalysis.getClasses().size());
+        assertEquals(second, reversedAnalysis.getClassDependencies().get("jact/depUtils/CounterType"));
+    }
+
+    private static File writeClassJar(String jarName, String... classNames) throws IOException {
+        File jarFile = new File(testDirectory, jarName);
+        jarFile.getParentFile().mkdirs();
+        try (ZipOutputStream out = new ZipOutputStream(new FileOutputStream(jarFile))) {
+            for (String className : classNames) {
+                out.putNextEntry(new ZipEntry(className + ".class"));
+                out.write(Files.readAllBytes(new File("./target/classes/" + className + ".class").toPath()));
+                out.closeEntry();
+            }
+        }
+        return jarFile;
+    }
+
+    /**
+     * Writes an exec file without any execution data.
+     */
+    private static File writeEmptyExecFile(String execName) throws IOException {
+        File execFile = new File(testDirectory, execName);
+        execFile.getParentFile().mkdirs();
+        try (OutputStream out = new FileOutputStream(execFile)) {
+            new ExecutionDataWriter(out).flush();
+        }
+        return execFile;
+    }
+}
@@ -0,0 +1,114 @@
+package jact.test.core;
+
+import jact.core.HtmlCellParser;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static junit.framework.TestCase.assertEquals;
+import static junit.framework.TestCase.assertTrue;
+
+public class HtmlCellParserTest {
+    // The patterns the parser replaces
+    private static final Pattern NUMBER_PATTERN = Pattern.compile("<td[^>]*>(\\d+(?:,\\d+)*)</td>");
+    private static final Pattern FRACTION_PATTERN =
+            Pattern.compile("<td[^>]*>(\\d+(?:,\\d+)*)\\s+of\\s+(\\d+(?:,\\d+)*)</td>");
+
+    @Test
+    /**
+     * Requirements: Cells of the JaCoCo HTML report.
+     * Contract:
+     *     Pre-condition:  Cells with plain numbers, thousands
+     *                     separators and other content.
+     *     Post-condition: The number of the first matching cell is
+     *                     returned, 0 if there is none.
+     */
+    public void parseNumberTest() {
+        assertEquals(12, HtmlCellParser.parseNumber("<td class=\"ctr1\" id=\"f2\">12</td>"));
+        assertEquals(1234567, HtmlCellParser.parseNumber("    <td class=\"ctr2\" id=\"g2\">1,234,567</td>"));
+        assertEquals(7, HtmlCellParser.parseNumber("<td class=\"ctr2\">n/a</td><td>7</td>"));
+        assertEquals(0, HtmlCellParser.parseNumber("<td class=\"ctr2\">1,</td>"));
+        assertEquals(0, HtmlCellParser.parseNumber("<td class=\"ctr2\" id=\"c5\">44%</td>"));
+    }
+
+    @Test
+    /**
+     * Requirements: Cells of the JaCoCo HTML report.
+     * Contract:
+     *     Pre-condition:  Cells with the `X of Y` form.
+     *     Post-condition: Both numbers of the first matching cell
+     *                     are returned, zeros if there is none.
+     */
+    public void parseFractionTest() {
+        assertTrue(Arrays.equals(new long[]{1234, 56789},
+                HtmlCellParser.parseFraction("<td class=\"bar\">1,234 of 56,789</td>")));
+        assertTrue(Arrays.equals(new long[]{3, 4},
+                HtmlCellParser.parseFraction("<td class=\"bar\">3\tof  4</td>")));
+        assertTrue(Arrays.equals(new long[]{0, 0},
+                HtmlCellParser.parseFraction("<td class=\"bar\">3of 4</td>")));
+        assertTrue(Arrays.equals(new long[]{0, 0},
+                HtmlCellParser.parseFraction("<td class=\"ctr1\">12</td>")));
+    }
+
+    @Test
+    /**
+     * Requirements: A package page as written by JaCoCo.
+     * Contract:
+     *     Pre-condition:  The page has a body and a footer row,
+     *                     without newlines between the cells.
+     *     Post-condition: Only the offsets of the footer row cells
+     *                     are returned, with their tags, and each
+     *                     cell is parsed in place without reading
+     *                     past its end.
+     */
+    public void parseFooterCellsTest() {
+        String html = "<table class=\"coverage\"><thead><tr><td>Element</td></tr></thead>"
+                + "<tfoot><tr><td>Total</td><td class=\"bar\">1,234 of 5,678</td><td class=\"ctr2\">78%</td>"
+                + "<td class=\"ctr1\">3</td></tr></tfoot>"
+                + "<tbody><tr><td id=\"a0\">Foo</td><td class=\"ctr1\">9</td></tr></tbody></table>";
+        int[] cells = HtmlCellParser.parseFooterCells(html);
+        assertEquals(8, cells.length);
+        assertEquals("<td>Total</td>", html.substring(cells[0], cells[1]));
+        assertTrue(Arrays.equals(new long[]{1234, 5678}, HtmlCellParser.parseFraction(html, cells[2], cells[3])));
+        assertEquals(0, HtmlCellParser.parseNumber(html, cells[4], cells[5]));
+        assertEquals(3, HtmlCellParser.parseNumber(html, cells[6], cells[7]));
+
+        assertEquals(0, HtmlCellParser.parseFooterCells("<table><tbody><tr><td>1</td></tr></tbody></table>").length);
+    }
+
+    @Test
+    /**
+     * Requirements: Randomly generated cells.
+     * Contract:
+     *     Pre-condition:  Lines built from fragments of table cells.
+     *     Post-condition: The parser returns the same numbers as the
+     *                     regular expressions it replaces.
+     */
+    public void matchesRegexTest() {
+        String[] fragments = {"<td", ">", " class=\"bar\"", "</td>", "1", "23", ",", ",456", " ", "of", "\t", "x", "<tr>"};
+        Random random = new Random(42);
+        for (int i = 0; i < 20000; i++) {
+            StringBuilder sb = new StringBuilder();
+            int length = random.nextInt(14);
+            for (int j = 0; j < length; j++) {
+                sb.append(fragments[random.nextInt(fragments.length)]);
+            }
+            String line = sb.toString();
+
+            Matcher number = NUMBER_PATTERN.matcher(line);
+            long expectedNumber = number.find() ? Long.parseLong(number.group(1).replace(",", "")) : 0L;
+            assertEquals(line, expectedNumber, HtmlCellParser.parseNumber(line));
+
+            Matcher fraction = FRACTION_PATTERN.matcher(line);
+            long[] expectedFraction = new long[2];
+            if (fraction.find()) {
+                expectedFraction[0] = Long.parseLong(fraction.group(1).replace(",", ""));
+                expectedFraction[1] = Long.parseLong(fraction.group(2).replace(",", ""));
+            }
+            assertTrue(line, Arrays.equals(expectedFraction, HtmlCellParser.parseFraction(line)));
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package jact.test.core;
+
+import jact.core.HtmlPage;
+import jact.core.HtmlTemplate;
+import jact.depUtils.DependencyUsage;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import static jact.utils.FileSystemUtils.removeDirectory;
+import static junit.framework.TestCase.assertEquals;
+import static junit.framework.TestCase.assertFalse;
+
+public class HtmlPageTest {
+    static String testDirectory = "./src/test/java/jact/test/testingDir/";
+
+    @AfterAll
+    public static void cleanUpTestDirs() {
+        removeDirectory(new File(testDirectory));
+        Assertions.assertFalse(new File(testDirectory).exists());
+    }
+
+    private static String writeAndRead(HtmlPage page, String fileName) throws IOException {
+        File file = new File(testDirectory, fileName);
+        file.getParentFile().mkdirs();
+        page.write(file.getPath());
+        return new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+    }
+
+    private static DependencyUsage usage(long missed, long total) {
+        DependencyUsage usage = new DependencyUsage();
+        usage.addMissedInstructions(missed);
+        usage.addTotalInstructions(total);
+        return usage;
+    }
+
+    @Test
+    /**
+     * Requirements: A start template with the total marker.
+     * Contract:
+     *     Pre-condition:  Rows are appended before and after
+     *                     the total is set, and the page is written.
+     *     Post-condition: The marker line is replaced by the total
+     *                     and the rows follow in order.
+     */
+    public void writeTotalAtMarkerTest() throws IOException {
+        HtmlPage page = new HtmlPage(HtmlTemplate.compile("<tfoot>\n  REPLACEWITHTOTAL\n</tfoot>\n<tbody>\n"),
+                HtmlTemplate.compile("</tbody>\n"), null);
+        DependencyUsage total = usage(10, 20);
+        DependencyUsage first = usage(2, 5);
+        DependencyUsage second = usage(8, 15);
+        page.appendUsage(first, "first.dependency", total, false, false);
+        page.setTotal(total.totalUsageToHTML());
+        page.appendUsage(second, "second.dependency", total, false, false);
+
+        String expected = "<tfoot>\n" + total.totalUsageToHTML() + "\n</tfoot>\n<tbody>\n" +
+                first.usageToHTML("first.dependency", total, false, false) +
+                second.usageToHTML("second.dependency", total, false, false) + "</tbody>\n";
+        assertEquals(expected, writeAndRead(page, "marker.html"));
+    }
+
+    @Test
+    /**
+     * Requirements: A start template without the total marker.
+     * Contract:
+     *     Pre-condition:  A total is set and the page is written.
+     *     Post-condition: The total is added at the end of the page,
+     *                     a page without total is written as is.
+     */
+    public void writeTotalWithoutMarkerTest() throws IOException {
+        HtmlTemplate start = HtmlTemplate.compile("<table>\n");
+        HtmlTemplate end = HtmlTemplate.compile("</table>\n");
+        HtmlPage page = new HtmlPage(start, end, null);
+        page.setTotal("<tr>total</tr>\n");
+        assertEquals("<table>\n</table>\n<tr>total</tr>\n\n", writeAndRead(page, "noMarker.html"));
+
+        assertEquals("<table>\n</table>\n", writeAndRead(new HtmlPage(start, end, null), "noTotal.html"));
+    }
+
+    @Test
+    /**
+     * Requirements: A page that has been written before.
+     * Contract:
+     *     Pre-condition:  A shorter page is written to the same file.
+     *     Post-condition: The file is replaced, not appended to.
+     */
+    public void writeReplacesFileTest() throws IOException {
+        HtmlTemplate end = HtmlTemplate.compile("</table>\n");
+        writeAndRead(new HtmlPage(HtmlTemplate.compile("<table class=\"long\">\n"), end, null), "replace.html");
+        String html = writeAndRead(new HtmlPage(HtmlTemplate.compile("<table>\n"), end, null), "replace.html");
+        assertEquals("<table>\n</table>\n", html);
+        assertFalse(html.contains("long"));
+    }
+}
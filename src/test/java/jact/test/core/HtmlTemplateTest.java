@@ -0,0 +1,68 @@
+package jact.test.core;
+
+import jact.core.HtmlTemplate;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+
+import static junit.framework.TestCase.assertEquals;
+import static junit.framework.TestCase.assertSame;
+import static junit.framework.TestCase.assertTrue;
+
+public class HtmlTemplateTest {
+
+    private static String render(HtmlTemplate template, String dependencyName, String total) throws IOException {
+        StringBuilder sb = new StringBuilder();
+        template.renderTo(sb, dependencyName, total);
+        return sb.toString();
+    }
+
+    @Test
+    /**
+     * Requirements: A template with dependency placeholders.
+     * Contract:
+     *     Pre-condition:  The template is rendered with and
+     *                     without a dependency name.
+     *     Post-condition: All placeholders are replaced by the name,
+     *                     without a name the template is unchanged.
+     */
+    public void renderPlaceholdersTest() throws IOException {
+        String content = "<h1>dependency.name</h1>\n<a href=\"pathtodependencyindex\">dependency.name</a>\n";
+        HtmlTemplate template = HtmlTemplate.compile(content);
+
+        assertEquals("<h1>org.example-v1</h1>\n<a href=\"org.example-v1/index.html\">org.example-v1</a>\n",
+                render(template, "org.example-v1", null));
+        assertEquals(content, render(template, null, null));
+    }
+
+    @Test
+    /**
+     * Requirements: A template with the total marker.
+     * Contract:
+     *     Pre-condition:  The template is rendered with and
+     *                     without a total.
+     *     Post-condition: The whole marker line is replaced by the total,
+     *                     without a total the template is unchanged.
+     */
+    public void renderTotalTest() throws IOException {
+        String content = "<tfoot>\n    REPLACEWITHTOTAL\n</tfoot>";
+        HtmlTemplate template = HtmlTemplate.compile(content);
+
+        assertTrue(template.hasTotalMarker());
+        assertEquals("<tfoot>\n<tr>total</tr>\n</tfoot>", render(template, null, "<tr>total</tr>"));
+        assertEquals(content, render(template, null, null));
+    }
+
+    @Test
+    /**
+     * Requirements: The templates of the report resources.
+     * Contract:
+     *     Pre-condition:  A template is requested twice.
+     *     Post-condition: It is only loaded and compiled once.
+     */
+    public void getCachedTemplateTest() throws IOException {
+        HtmlTemplate template = HtmlTemplate.get("html-templates/endTemplate.html");
+        assertSame(template, HtmlTemplate.get("html-templates/endTemplate.html"));
+        assertTrue(render(template, null, null).endsWith("</html>\n"));
+    }
+}
@@ -0,0 +1,95 @@
+package jact.test.core;
+
+import jact.core.ReportState;
+import jact.depUtils.DependencyUsage;
+import jact.depUtils.ProjectDependency;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+
+import static jact.utils.FileSystemUtils.removeDirectory;
+import static junit.framework.TestCase.assertEquals;
+import static junit.framework.TestCase.assertFalse;
+import static junit.framework.TestCase.assertNull;
+import static junit.framework.TestCase.assertTrue;
+
+public class ReportStateTest {
+    static String testDirectory = "./src/test/java/jact/test/testingDir/";
+
+    @AfterAll
+    public static void cleanUpTestDirs() {
+        removeDirectory(new File(testDirectory));
+        Assertions.assertFalse(new File(testDirectory).exists());
+    }
+
+    private static ProjectDependency createDependency(String artifactId, long missedInstructions) {
+        ProjectDependency dependency = new ProjectDependency();
+        dependency.setId("org.example:" + artifactId + ":1.0");
+        dependency.setGroupId("org.example");
+        dependency.setArtifactId(artifactId);
+        dependency.setVersion("1.0");
+        DependencyUsage packageUsage = new DependencyUsage();
+        packageUsage.addMissedInstructions(missedInstructions);
+        packageUsage.addTotalInstructions(100);
+        dependency.packageUsageMap.put("org.example." + artifactId.replace("-", "."), packageUsage);
+        dependency.dependencyUsage.addAll(packageUsage);
+        return dependency;
+    }
+
+    @Test
+    /**
+     * Requirements: Nothing.
+     * Contract:
+     *     Pre-condition:  Fingerprints are stored for two dependencies.
+     *     Post-condition: The fingerprints are read back from the
+     *                     report directory.
+     */
+    public void readWriteStateTest() {
+        new File(testDirectory).mkdirs();
+        ReportState state = new ReportState();
+        state.setFingerprint("org.example:a:1.0", "abc");
+        state.setFingerprint("org.example:b:1.0", "def");
+        state.write(testDirectory);
+
+        ReportState readState = ReportState.read(testDirectory);
+        assertEquals("abc", readState.getFingerprint("org.example:a:1.0"));
+        assertEquals("def", readState.getFingerprint("org.example:b:1.0"));
+        assertEquals(2, readState.getDependencyIds().size());
+    }
+
+    @Test
+    /**
+     * Requirements: Nothing.
+     * Contract:
+     *     Pre-condition:  There is no previous report.
+     *     Post-condition: The state is empty.
+     */
+    public void readMissingStateTest() {
+        ReportState state = ReportState.read(testDirectory + "missing/");
+        assertTrue(state.getDependencyIds().isEmpty());
+        assertNull(state.getFingerprint("org.example:a:1.0"));
+    }
+
+    @Test
+    /**
+     * Requirements: Two dependencies with the same usage.
+     * Contract:
+     *     Pre-condition:  The usage of one dependency changes.
+     *     Post-condition: Only the fingerprint of the changed
+     *                     dependency differs.
+     */
+    public void fingerprintTest() {
+        String unchanged = ReportState.fingerprint(createDependency("a", 10), null);
+        assertEquals(unchanged, ReportState.fingerprint(createDependency("a", 10), null));
+        assertFalse(unchanged.equals(ReportState.fingerprint(createDependency("a", 20), null)));
+        assertFalse(unchanged.equals(ReportState.fingerprint(createDependency("b", 10), null)));
+
+        // The indirect usage is part of the pages of a dependency
+        ProjectDependency parent = createDependency("a", 10);
+        ProjectDependency child = createDependency("c", 50);
+        parent.addChildDep(child);
+        assertFalse(unchanged.equals(ReportState.fingerprint(parent, child.dependencyUsage)));
+    }
+}
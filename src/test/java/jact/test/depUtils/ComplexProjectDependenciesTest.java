@@ -1,5 +1,6 @@
 package jact.test.depUtils;
 
+import jact.depUtils.ProjectDependencies;
 import jact.depUtils.ProjectDependency;
 import org.junit.jupiter.api.AfterAll;
 import org.junit.jupiter.api.Assertions;
@@ -12,8 +13,6 @@ import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 
-import static jact.depUtils.ProjectDependencies.getAllProjectDependencies;
-import static jact.depUtils.ProjectDependencies.getIndirectUsageMap;
 import static jact.depUtils.ProjectDependency.depToDirName;
 import static jact.utils.FileSystemUtils.removeDirectory;
 import static junit.framework.TestCase.assertEquals;
@@ -123,6 +122,7 @@ public class ComplexProjectDependenciesTest {
         return uniqueList;
     }
 
+    public static ProjectDependencies projectDependencies;
     public static Map<String, ProjectDependency> dependencies;
 
     @AfterAll
@@ -141,7 +141,8 @@ public class ComplexProjectDependenciesTest {
     public static void initTestDependencies() {
         dependencyIds = removeDuplicates(dependencyIds);
         assertTrue(new File(testResourcesDir + "lockfile.json").exists());
-        dependencies = getAllProjectDependencies(testResourcesDir, false, false);
+        projectDependencies = new ProjectDependencies(REPORTPATH, false);
+        dependencies = projectDependencies.getAllProjectDependencies(testResourcesDir);
     }
 
     @Test
@@ -180,38 +181,38 @@ public class ComplexProjectDependenciesTest {
      *                     indirectUsageMap.
      */
     public void indirectReportPathsTest() {
-        assertEquals(30, getIndirectUsageMap().size());
-
-        assertTrue(getIndirectUsageMap().containsKey("org.apache.maven.doxia:doxia-logging-api:1.12.0"));
-        assertTrue(getIndirectUsageMap().containsKey("org.apache.maven.doxia:doxia-sink-api:1.12.0"));
-        assertTrue(getIndirectUsageMap().containsKey("org.junit.jupiter:junit-jupiter-engine:5.10.2"));
-        assertTrue(getIndirectUsageMap().containsKey("com.tngtech.archunit:archunit-junit5-api:1.2.1"));
-        assertTrue(getIndirectUsageMap().containsKey("org.apache.httpcomponents.client5:httpclient5:5.1.3"));
-        assertTrue(getIndirectUsageMap().containsKey("org.apache.httpcomponents:httpclient:4.5.13"));
-        assertTrue(getIndirectUsageMap().containsKey("com.github.caciocavallosilano:cacio-tta:1.11"));
-        assertTrue(getIndirectUsageMap().containsKey("org.xmlresolver:xmlresolver:5.2.2"));
-        assertTrue(getIndirectUsageMap().containsKey("com.tngtech.archunit:archunit-junit5:1.2.1"));
-        assertTrue(getIndirectUsageMap().containsKey("org.apache.httpcomponents.core5:httpcore5-h2:5.1.3"));
-        assertTrue(getIndirectUsageMap().containsKey("com.google.truth:truth:1.4.2"));
-        assertTrue(getIndirectUsageMap().containsKey("commons-beanutils:commons-beanutils:1.9.4"));
-        assertTrue(getIndirectUsageMap().containsKey("junit:junit:4.13.2"));
-        assertTrue(getIndirectUsageMap().containsKey("org.apache.maven.doxia:doxia-module-xdoc:1.12.0"));
-        assertTrue(getIndirectUsageMap().containsKey("org.junit.platform:junit-platform-engine:1.10.2"));
-        assertTrue(getIndirectUsageMap().containsKey("org.junit.jupiter:junit-jupiter-params:5.9.2"));
-        assertTrue(getIndirectUsageMap().containsKey("org.eclipse.jgit:org.eclipse.jgit:6.9.0.202403050737-r"));
-        assertTrue(getIndirectUsageMap().containsKey("org.mockito:mockito-inline:5.2.0"));
-        assertTrue(getIndirectUsageMap().containsKey("org.junit-pioneer:junit-pioneer:2.2.0"));
-        assertTrue(getIndirectUsageMap().containsKey("org.mockito:mockito-core:5.2.0"));
-        assertTrue(getIndirectUsageMap().containsKey("org.junit.platform:junit-platform-commons:1.10.2"));
-        assertTrue(getIndirectUsageMap().containsKey("org.codehaus.plexus:plexus-container-default:2.1.0"));
-        assertTrue(getIndirectUsageMap().containsKey("nl.jqno.equalsverifier:equalsverifier:3.16"));
-        assertTrue(getIndirectUsageMap().containsKey("org.junit.jupiter:junit-jupiter-api:5.10.2"));
-        assertTrue(getIndirectUsageMap().containsKey("com.google.guava:guava:33.1.0-jre"));
-        assertTrue(getIndirectUsageMap().containsKey("com.tngtech.archunit:archunit-junit5-engine:1.2.1"));
-        assertTrue(getIndirectUsageMap().containsKey("net.sf.saxon:Saxon-HE:12.4"));
-        assertTrue(getIndirectUsageMap().containsKey("org.junit.platform:junit-platform-launcher:1.9.2"));
-        assertTrue(getIndirectUsageMap().containsKey("org.apache.maven.doxia:doxia-core:1.12.0"));
-        assertTrue(getIndirectUsageMap().containsKey("org.reflections:reflections:0.10.2"));
+        assertEquals(30, projectDependencies.getIndirectUsageMap().size());
+
+        assertTrue(projectDependencies.getIndirectUsageMap().containsKey("org.apache.maven.doxia:doxia-logging-api:1.12.0"));
+        assertTrue(projectDependencies.getIndirectUsageMap().containsKey("org.apache.maven.doxia:doxia-sink-api:1.12.0"));
+        assertTrue(projectDependencies.getIndirectUsageMap().containsKey("org.junit.jupiter:junit-jupiter-engine:5.10.2"));
+        assertTrue(projectDependencies.getIndirectUsageMap().containsKey("com.tngtech.archunit:archunit-junit5-api:1.2.1"));
+        assertTrue(projectDependencies.getIndirectUsageMap().containsKey("org.apache.httpcomponents.client5:httpclient5:5.1.3"));
+        assertTrue(projectDependencies.getIndirectUsageMap().containsKey("org.apache.httpcomponents:httpclient:4.5.13"));
+        assertTrue(projectDependencies.getIndirectUsageMap().containsKey("com.github.caciocavallosilano:cacio-tta:1.11"));
+        assertTrue(projectDependencies.getIndirectUsageMap().containsKey("org.xmlresolver:xmlresolver:5.2.2"));
+        assertTrue(projectDependencies.getIndirectUsageMap().containsKey("com.tngtech.archunit:archunit-junit5:1.2.1"));
+        assertTrue(projectDependencies.getIndirectUsageMap().containsKey("org.apache.httpcomponents.core5:httpcore5-h2:5.1.3"));
+        assertTrue(projectDependencies.getIndirectUsageMap().containsKey("com.google.truth:truth:1.4.2"));
+        assertTrue(projectDependencies.getIndirectUsageMap().containsKey("commons-beanutils:commons-beanutils:1.9.4"));
+        assertTrue(projectDependencies.getIndirectUsageMap().containsKey("junit:junit:4.13.2"));
+        assertTrue(projectDependencies.getIndirectUsageMap().containsKey("org.apache.maven.doxia:doxia-module-xdoc:1.12.0"));
+        assertTrue(projectDependencies.getIndirectUsageMap().containsKey("org.junit.platform:junit-platform-engine:1.10.2"));
+        assertTrue(projectDependencies.getIndirectUsageMap().containsKey("org.junit.jupiter:junit-jupiter-params:5.9.2"));
+        assertTrue(projectDependencies.getIndirectUsageMap().containsKey("org.eclipse.jgit:org.eclipse.jgit:6.9.0.202403050737-r"));
+        assertTrue(projectDependencies.getIndirectUsageMap().containsKey("org.mockito:mockito-inline:5.2.0"));
+        assertTrue(projectDependencies.getIndirectUsageMap().containsKey("org.junit-pioneer:junit-pioneer:2.2.0"));
+        assertTrue(projectDependencies.getIndirectUsageMap().containsKey("org.mockito:mockito-core:5.2.0"));
+        assertTrue(projectDependencies.getIndirectUsageMap().containsKey("org.junit.platform:junit-platform-commons:1.10.2"));
+        assertTrue(projectDependencies.getIndirectUsageMap().containsKey("org.codehaus.plexus:plexus-container-default:2.1.0"));
+        assertTrue(projectDependencies.getIndirectUsageMap().containsKey("nl.jqno.equalsverifier:equalsverifier:3.16"));
+        assertTrue(projectDependencies.getIndirectUsageMap().containsKey("org.junit.jupiter:junit-jupiter-api:5.10.2"));
+        assertTrue(projectDependencies.getIndirectUsageMap().containsKey("com.google.guava:guava:33.1.0-jre"));
+        assertTrue(projectDependencies.getIndirectUsageMap().containsKey("com.tngtech.archunit:archunit-junit5-engine:1.2.1"));
+        assertTrue(projectDependencies.getIndirectUsageMap().containsKey("net.sf.saxon:Saxon-HE:12.4"));
+        assertTrue(projectDependencies.getIndirectUsageMap().containsKey("org.junit.platform:junit-platform-launcher:1.9.2"));
+        assertTrue(projectDependencies.getIndirectUsageMap().containsKey("org.apache.maven.doxia:doxia-core:1.12.0"));
+        assertTrue(projectDependencies.getIndirectUsageMap().containsKey("org.reflections:reflections:0.10.2"));
     }
 
 }
@@ -1,12 +1,16 @@
 package jact.test.depUtils;
 
+import jact.depUtils.CounterType;
 import jact.depUtils.DependencyUsage;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 
+import java.io.IOException;
+
 import static jact.depUtils.DependencyUsage.barLength;
 import static jact.depUtils.DependencyUsage.percentage;
 import static junit.framework.TestCase.assertEquals;
+import static junit.framework.TestCase.assertTrue;
 
 
 public class DependencyUsageTest {
@@ -144,4 +148,98 @@ public class DependencyUsageTest {
         assertEquals(12, barLength(151432412, 1231252144));
     }
 
+    @Test
+    /**
+     * Requirements: An initialized DependencyUsage object.
+     * Contract:
+     *     Pre-condition: Missed and total instructions and classes are added.
+     *     Post-condition: The appended XML counters match the string version
+     *                     and hold the covered and missed counts.
+     */
+    public void appendTotalUsageXMLTest() throws IOException {
+        testUsage.addMissedInstructions(25);
+        testUsage.addTotalInstructions(100);
+        testUsage.addMissedClasses(1);
+        testUsage.addTotalClasses(4);
+
+        StringBuilder sb = new StringBuilder();
+        testUsage.appendTotalUsageXML(sb, "  ");
+        assertEquals(testUsage.totalUsageToXML("  "), sb.toString());
+        assertTrue(sb.toString().startsWith("  <counter covered=\"75\" missed=\"25\" type=\"INSTRUCTION\"/>\n"));
+        assertTrue(sb.toString().endsWith("  <counter covered=\"3\" missed=\"1\" type=\"CLASS\"/>\n"));
+    }
+
+    @Test
+    /**
+     * Requirements: An initialized DependencyUsage object.
+     * Contract:
+     *     Pre-condition: Missed and total methods are added.
+     *     Post-condition: The appended markdown section matches the string
+     *                     version and holds the covered and total methods.
+     */
+    public void appendUsageMarkdownTest() throws IOException {
+        testUsage.addMissedMethods(1);
+        testUsage.addTotalMethods(4);
+
+        StringBuilder sb = new StringBuilder();
+        testUsage.appendUsageMarkdown(sb, "TEST", DependencyUsage.createPercentageFormat());
+        assertEquals(testUsage.usageToMarkdown("TEST"), sb.toString());
+        assertTrue(sb.toString().startsWith("### TEST (covered, total):  \n"));
+        assertTrue(sb.toString().contains("**METHOD** &nbsp;3 : 75% | 4  \n"));
+    }
+
+    @Test
+    /**
+     * Requirements: Two initialized DependencyUsage objects.
+     * Contract:
+     *     Pre-condition: Counters are added by type and with the named adders.
+     *     Post-condition: Both are reflected by the typed and named getters,
+     *                     adding a usage is applied to all counters.
+     */
+    public void counterTypeAddTest() {
+        testUsage.add(CounterType.INSTRUCTION, 3, 10);
+        testUsage.addMissedClasses(1);
+        testUsage.addTotalClasses(2);
+        assertEquals(3, testUsage.getMissedInstructions());
+        assertEquals(10, testUsage.getTotal(CounterType.INSTRUCTION));
+        assertEquals(1, testUsage.getMissed(CounterType.CLASS));
+        assertEquals(2, testUsage.getTotal(CounterType.CLASS));
+
+        DependencyUsage otherUsage = new DependencyUsage();
+        otherUsage.add(CounterType.INSTRUCTION, 1, 5);
+        otherUsage.add(CounterType.COMPLEXITY, 2, 4);
+        testUsage.addAll(otherUsage);
+        assertEquals(4, testUsage.getMissedInstructions());
+        assertEquals(15, testUsage.getTotalInstructions());
+        assertEquals(2, testUsage.getMissedCyclomaticComplexity());
+        assertEquals(4, testUsage.getCyclomaticComplexity());
+        assertEquals(2, testUsage.getTotalClasses());
+    }
+
+    @Test
+    /**
+     * Requirements: An initialized DependencyUsage object.
+     * Contract:
+     *     Pre-condition: Counters of different magnitudes are added,
+     *                    including zero and the largest long values.
+     *     Post-condition: The counter cells are grouped like
+     *                     `String.format("%,d")` and the XML counters
+     *                     hold the plain digits.
+     */
+    public void appendDigitsTest() throws IOException {
+        long[] values = {0, 7, 999, 1000, 123456, 1000000, 9876543210L, Long.MAX_VALUE};
+        for (long value : values) {
+            DependencyUsage usage = new DependencyUsage();
+            usage.addTotalClasses(value);
+            assertTrue(String.valueOf(value), usage.totalUsageToHTML()
+                    .contains("id=\"m11\">" + String.format("%,d", value) + "</td>"));
+            StringBuilder sb = new StringBuilder();
+            usage.appendTotalUsageXML(sb, "");
+            assertTrue(String.valueOf(value), sb.toString()
+                    .contains("<counter covered=\"" + value + "\" missed=\"0\" type=\"CLASS\"/>"));
+        }
+        DependencyUsage negative = new DependencyUsage();
+        negative.addTotalClasses(Long.MIN_VALUE);
+        assertTrue(negative.totalUsageToHTML().contains(String.format("%,d", Long.MIN_VALUE)));
+    }
 }
@@ -0,0 +1,163 @@
+package jact.test.depUtils;
+
+import jact.depUtils.PackageIndexCache;
+import jact.depUtils.PackageToDependencyResolver;
+import jact.depUtils.ProjectDependency;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static jact.utils.FileSystemUtils.removeDirectory;
+import static junit.framework.TestCase.assertEquals;
+import static junit.framework.TestCase.assertNull;
+import static junit.framework.TestCase.assertTrue;
+
+public class PackageIndexCacheTest {
+    static String testDirectory = "./src/test/java/jact/test/testingDir/";
+    static String cacheDirectory = testDirectory + "jact-cache";
+    static String localRepoPath = testDirectory + "cacheRepository";
+
+    @AfterAll
+    public static void cleanUpTestDirs() {
+        removeDirectory(new File(testDirectory));
+        Assertions.assertFalse(new File(testDirectory).exists());
+    }
+
+    private static void writeJar(File jar, String... entries) throws IOException {
+        jar.getParentFile().mkdirs();
+        try (ZipOutputStream out = new ZipOutputStream(new FileOutputStream(jar))) {
+            for (String entry : entries) {
+                out.putNextEntry(new ZipEntry(entry));
+                out.closeEntry();
+            }
+        }
+    }
+
+    @Test
+    /**
+     * Requirements: Nothing.
+     * Contract:
+     *     Pre-condition:  A class list is stored for a checksum.
+     *     Post-condition: The list is only returned for the same
+     *                     checksum and set of jars.
+     */
+    public void readWriteClassesTest() {
+        PackageIndexCache cache = new PackageIndexCache(cacheDirectory);
+        Set<String> classes = new LinkedHashSet<>(Arrays.asList("org/example/a/A", "org/example/b/B$Inner"));
+        cache.writeClasses("abc123", "a-1.0.jar", classes);
+
+        assertEquals(classes, cache.readClasses("abc123", "a-1.0.jar"));
+        assertNull(cache.readClasses("abc123", "a-1.0.jar,a-1.0-tests.jar"));
+        assertNull(cache.readClasses("def456", "a-1.0.jar"));
+    }
+
+    @Test
+    /**
+     * Requirements: A dependency with a checksum in the local repository.
+     * Contract:
+     *     Pre-condition:  The classes of the dependency jar are cached
+     *                     by a first report.
+     *     Post-condition: A later report resolves packages from the cache
+     *                     without reading the (here modified) jar again.
+     */
+    public void resolverUsesCacheTest() throws IOException {
+        PackageIndexCache cache = new PackageIndexCache(cacheDirectory);
+        ProjectDependency dependency = new ProjectDependency();
+        dependency.setId("org.cached:gamma:3.0");
+        dependency.setGroupId("org.cached");
+        dependency.setArtifactId("gamma");
+        dependency.setVersion("3.0");
+        dependency.setChecksum("0123456789abcdef");
+        File jar = new File(localRepoPath + "/org/cached/gamma/3.0/gamma-3.0.jar");
+        writeJar(jar, "org/cached/gamma/Gamma.class");
+
+        Map<String, ProjectDependency> firstRun = new HashMap<>();
+        firstRun.put(dependency.getId(), dependency);
+        PackageToDependencyResolver firstResolver = new PackageToDependencyResolver(firstRun, localRepoPath, cache);
+        assertEquals("org.cached:gamma:3.0", firstResolver.packageToDependency("org.cached.gamma").getId());
+        assertTrue(new File(cacheDirectory, "0123456789abcdef.classes").exists());
+
+        // Same artifact checksum, so the changed jar content must not be read
+        writeJar(jar, "org/cached/other/Other.class");
+        Map<String, ProjectDependency> secondRun = new HashMap<>(firstRun);
+        PackageToDependencyResolver secondResolver = new PackageToDependencyResolver(secondRun, localRepoPath, cache);
+        assertEquals("org.cached:gamma:3.0", secondResolver.packageToDependency("org.cached.gamma").getId());
+        assertNull(secondResolver.packageToDependency("org.cached.other").getId());
+    }
+
+    @Test
+    /**
+     * Requirements: Dependencies without a checksum, as collected
+     *               from the Maven dependency graph.
+     * Contract:
+     *     Pre-condition:  One jar has a .sha1 file in the local
+     *                     repository, the other has none.
+     *     Post-condition: The entries are keyed by the SHA-1 of the
+     *                     repository and by the dependency with the
+     *                     size and modification time of its jar.
+     */
+    public void cacheKeyWithoutChecksumTest() throws IOException {
+        PackageIndexCache cache = new PackageIndexCache(cacheDirectory);
+        ProjectDependency downloaded = dependency("org.keyed", "downloaded", "1.0");
+        File downloadedJar = new File(localRepoPath + "/org/keyed/downloaded/1.0/downloaded-1.0.jar");
+        writeJar(downloadedJar, "org/keyed/downloaded/Downloaded.class");
+        String sha1 = "0123456789abcdef0123456789abcdef01234567";
+        Files.write(new File(downloadedJar.getPath() + ".sha1").toPath(),
+                (sha1.toUpperCase() + "  downloaded-1.0.jar\n").getBytes(StandardCharsets.UTF_8));
+        ProjectDependency installed = dependency("org.keyed", "installed", "1.0");
+        File installedJar = new File(localRepoPath + "/org/keyed/installed/1.0/installed-1.0.jar");
+        writeJar(installedJar, "org/keyed/installed/Installed.class");
+
+        Map<String, ProjectDependency> dependencies = new HashMap<>();
+        dependencies.put(downloaded.getId(), downloaded);
+        dependencies.put(installed.getId(), installed);
+        PackageToDependencyResolver resolver = new PackageToDependencyResolver(dependencies, localRepoPath, cache);
+        assertEquals("org.keyed:downloaded:1.0", resolver.packageToDependency("org.keyed.downloaded").getId());
+        assertEquals("org.keyed:installed:1.0", resolver.packageToDependency("org.keyed.installed").getId());
+
+        assertTrue(new File(cacheDirectory, sha1 + ".classes").exists());
+        String installedKey = "org.keyed.installed-v1.0-" + installedJar.length() + "-" + installedJar.lastModified();
+        assertTrue(new File(cacheDirectory, installedKey + ".classes").exists());
+    }
+
+    private static ProjectDependency dependency(String groupId, String artifactId, String version) {
+        ProjectDependency dependency = new ProjectDependency();
+        dependency.setId(groupId + ":" + artifactId + ":" + version);
+        dependency.setGroupId(groupId);
+        dependency.setArtifactId(artifactId);
+        dependency.setVersion(version);
+        return dependency;
+    }
+
+    @Test
+    /**
+     * Requirements: Nothing.
+     * Contract:
+     *     Pre-condition:  The entry cannot be moved into place, as a
+     *                     non-empty directory has its name.
+     *     Post-condition: No temporary file is left in the cache.
+     */
+    public void failedWriteCleanUpTest() throws IOException {
+        PackageIndexCache cache = new PackageIndexCache(cacheDirectory);
+        File blockingDir = new File(cacheDirectory, "blocked.classes");
+        assertTrue(new File(blockingDir, "content").mkdirs());
+        cache.writeClasses("blocked", "a-1.0.jar", Arrays.asList("org/example/a/A"));
+
+        File[] tempFiles = new File(cacheDirectory).listFiles((dir, name) -> name.endsWith(".tmp"));
+        assertEquals(0, tempFiles.length);
+        assertNull(cache.readClasses("blocked", "a-1.0.jar"));
+    }
+}
@@ -0,0 +1,221 @@
+package jact.test.depUtils;
+
+import jact.depUtils.PackageToDependencyResolver;
+import jact.depUtils.ProjectDependency;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static jact.utils.FileSystemUtils.removeDirectory;
+import static junit.framework.TestCase.assertEquals;
+import static junit.framework.TestCase.assertFalse;
+import static junit.framework.TestCase.assertNull;
+import static junit.framework.TestCase.assertTrue;
+
+public class PackageToDependencyResolverTest {
+    static String testDirectory = "./src/test/java/jact/test/testingDir/";
+    static String localRepoPath = testDirectory + "repository";
+
+    public static Map<String, ProjectDependency> dependencies;
+    public static PackageToDependencyResolver resolver;
+
+    @AfterAll
+    public static void cleanUpTestDirs() {
+        removeDirectory(new File(testDirectory));
+        Assertions.assertFalse(new File(testDirectory).exists());
+    }
+
+    @BeforeAll
+    /**
+     * Creates a local repository with three dependencies
+     * whose jars contain a few class files each. The
+     * `javax.annotation` package is split across two of them.
+     */
+    public static void initTestRepository() throws IOException {
+        dependencies = new LinkedHashMap<>();
+        addDependency("org.example", "alpha", "1.0",
+                "org/example/alpha/Alpha.class",
+                "org/example/alpha/internal/Helper.class",
+                "META-INF/versions/9/org/example/shadow/Shadow.class");
+        addDependency("org.example", "beta", "2.1",
+                "org/example/beta/Beta.class",
+                "org/example/alphabet/Letters.class",
+                "Unnamed.class");
+        addDependency("com.google.code.findbugs", "jsr305", "3.0.2",
+                "javax/annotation/Nonnull.class",
+                "javax/annotation/Nullable.class",
+                "javax/annotation/meta/When.class",
+                "javax/annotation/Generated.class");
+        addDependency("jakarta.annotation", "jakarta.annotation-api", "1.3.5",
+                "javax/annotation/PostConstruct.class",
+                "javax/annotation/PreDestroy.class",
+                "javax/annotation/Resource.class",
+                "javax/annotation/Resource$AuthenticationType.class",
+                "javax/annotation/Generated.class");
+        resolver = new PackageToDependencyResolver(dependencies, localRepoPath, null);
+    }
+
+    private static void addDependency(String groupId, String artifactId, String version,
+                                      String... entries) throws IOException {
+        ProjectDependency dependency = new ProjectDependency();
+        dependency.setId(groupId + ":" + artifactId + ":" + version);
+        dependency.setGroupId(groupId);
+        dependency.setArtifactId(artifactId);
+        dependency.setVersion(version);
+        dependencies.put(dependency.getId(), dependency);
+
+        File dir = new File(localRepoPath + "/" + groupId.replace('.', '/') + "/" + artifactId + "/" + version);
+        dir.mkdirs();
+        try (ZipOutputStream out = new ZipOutputStream(
+                new FileOutputStream(new File(dir, artifactId + "-" + version + ".jar")))) {
+            for (String entry : entries) {
+                out.putNextEntry(new ZipEntry(entry));
+                out.closeEntry();
+            }
+        }
+    }
+
+    @Test
+    /**
+     * Requirements: See `initTestRepository()`.
+     * Contract:
+     *      Pre-condition: Two dependency jars exist in the
+     *                     local repository.
+     *     Post-condition: Packages are resolved to the dependency
+     *                     whose jar contains classes of that exact
+     *                     package, given either '.' or '/' separators.
+     */
+    public void resolvesExactPackageTest() {
+        assertEquals("org.example:alpha:1.0",
+                resolver.packageToDependency("org.example.alpha").getId());
+        assertEquals("org.example:alpha:1.0",
+                resolver.packageToDependency("org/example/alpha/internal").getId());
+        assertEquals("org.example:beta:2.1",
+                resolver.packageToDependency("org.example.alphabet").getId());
+        assertEquals("org.example:beta:2.1",
+                resolver.packageToDependency("org.example.beta").getId());
+    }
+
+    @Test
+    /**
+     * Requirements: See `initTestRepository()`.
+     * Contract:
+     *      Pre-condition: Two dependency jars exist in the
+     *                     local repository.
+     *     Post-condition: Unknown packages, parent packages without
+     *                     classes and META-INF entries are not matched.
+     */
+    public void unmatchedPackageTest() {
+        assertNull(resolver.packageToDependency("org.example").getId());
+        assertNull(resolver.packageToDependency("org.example.shadow").getId());
+        assertNull(resolver.packageToDependency("com.unknown").getId());
+    }
+
+    @Test
+    /**
+     * Requirements: See `initTestRepository()`.
+     * Contract:
+     *      Pre-condition: `javax.annotation` has classes in both
+     *                     jsr305 and jakarta.annotation-api.
+     *     Post-condition: Every class is resolved to the jar providing
+     *                     it, the package to the dependency providing
+     *                     most of its classes.
+     */
+    public void splitPackageTest() {
+        assertTrue(resolver.isSplitPackage("javax/annotation"));
+        assertFalse(resolver.isSplitPackage("javax.annotation.meta"));
+        assertFalse(resolver.isSplitPackage("org.example.alpha"));
+
+        assertEquals("com.google.code.findbugs:jsr305:3.0.2",
+                resolver.classToDependency("javax/annotation/Nonnull").getId());
+        assertEquals("jakarta.annotation:jakarta.annotation-api:1.3.5",
+                resolver.classToDependency("javax/annotation/Resource$AuthenticationType").getId());
+        assertEquals("jakarta.annotation:jakarta.annotation-api:1.3.5",
+                resolver.packageToDependency("javax.annotation").getId());
+        assertEquals("com.google.code.findbugs:jsr305:3.0.2",
+                resolver.packageToDependency("javax.annotation.meta").getId());
+    }
+
+    @Test
+    /**
+     * Requirements: See `initTestRepository()`.
+     * Contract:
+     *      Pre-condition: `javax.annotation.Generated` is contained
+     *                     in both jsr305 and jakarta.annotation-api.
+     *     Post-condition: A class is resolved to the first dependency
+     *                     containing it and unknown classes are not matched.
+     */
+    public void classToDependencyTest() {
+        assertEquals("com.google.code.findbugs:jsr305:3.0.2",
+                resolver.classToDependency("javax/annotation/Generated").getId());
+        assertEquals("org.example:beta:2.1", resolver.classToDependency("org/example/beta/Beta").getId());
+        assertNull(resolver.classToDependency("org/example/beta/Gamma").getId());
+        assertNull(resolver.classToDependency("org/example/beta").getId());
+        assertNull(resolver.classToDependency("javax/annotation/Resource$Unknown").getId());
+    }
+
+    @Test
+    /**
+     * Requirements: See `initTestRepository()`.
+     * Contract:
+     *      Pre-condition: The jars are read with several threads.
+     *     Post-condition: Classes and packages are resolved exactly
+     *                     like by the resolver built on one thread,
+     *                     including classes contained in several jars.
+     */
+    public void concurrentIndexTest() {
+        PackageToDependencyResolver concurrentResolver =
+                new PackageToDependencyResolver(dependencies, localRepoPath, null, 4);
+        String[] classNames = {"org/example/alpha/Alpha", "org/example/alphabet/Letters",
+                "javax/annotation/Generated", "javax/annotation/Nonnull", "javax/annotation/Resource",
+                "javax/annotation/meta/When"};
+        for (String className : classNames) {
+            assertEquals(className, resolver.classToDependency(className).getId(),
+                    concurrentResolver.classToDependency(className).getId());
+        }
+        String[] packageNames = {"org.example.alpha", "org.example.beta", "javax.annotation", "javax.annotation.meta"};
+        for (String packageName : packageNames) {
+            assertEquals(packageName, resolver.packageToDependency(packageName).getId(),
+                    concurrentResolver.packageToDependency(packageName).getId());
+            assertEquals(packageName, resolver.isSplitPackage(packageName),
+                    concurrentResolver.isSplitPackage(packageName));
+        }
+    }
+
+    @Test
+    /**
+     * Requirements: See `initTestRepository()`.
+     * Contract:
+     *      Pre-condition: The classes are already attributed to their
+     *                     dependency, e.g. by analyzing the jars.
+     *     Post-condition: Classes and packages are resolved with the given
+     *                     attribution, without reading any jar.
+     */
+    public void classDependenciesTest() {
+        ProjectDependency jsr305 = dependencies.get("com.google.code.findbugs:jsr305:3.0.2");
+        ProjectDependency annotationApi = dependencies.get("jakarta.annotation:jakarta.annotation-api:1.3.5");
+        Map<String, ProjectDependency> classDependencies = new LinkedHashMap<>();
+        classDependencies.put("javax/annotation/Nonnull", jsr305);
+        classDependencies.put("javax/annotation/Generated", annotationApi);
+        classDependencies.put("javax/annotation/PostConstruct", annotationApi);
+        classDependencies.put("javax/annotation/meta/When", jsr305);
+        PackageToDependencyResolver analyzedResolver = new PackageToDependencyResolver(classDependencies);
+
+        assertEquals(annotationApi, analyzedResolver.classToDependency("javax/annotation/Generated"));
+        assertEquals(jsr305, analyzedResolver.classToDependency("javax/annotation/Nonnull"));
+        assertTrue(analyzedResolver.isSplitPackage("javax.annotation"));
+        assertEquals(annotationApi, analyzedResolver.packageToDependency("javax.annotation"));
+        assertEquals(jsr305, analyzedResolver.packageToDependency("javax.annotation.meta"));
+        // Classes of jars that were not analyzed are unknown
+        assertNull(analyzedResolver.packageToDependency("org.example.alpha").getId());
+    }
+}
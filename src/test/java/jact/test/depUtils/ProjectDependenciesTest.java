@@ -1,19 +1,31 @@
 package jact.test.depUtils;
 
+import jact.depUtils.ProjectDependencies;
 import jact.depUtils.ProjectDependency;
+import org.apache.maven.artifact.Artifact;
+import org.apache.maven.artifact.DefaultArtifact;
+import org.apache.maven.artifact.handler.DefaultArtifactHandler;
+import org.apache.maven.shared.dependency.graph.DependencyNode;
+import org.apache.maven.shared.dependency.graph.internal.DefaultDependencyNode;
 import org.junit.jupiter.api.AfterAll;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
 
 import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
 import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
-import static jact.depUtils.ProjectDependencies.getAllProjectDependencies;
-import static jact.depUtils.ProjectDependencies.getIndirectUsageMap;
+import static jact.depUtils.ProjectDependency.depIdToDirName;
 import static jact.depUtils.ProjectDependency.depToDirName;
+import static jact.utils.FileSystemUtils.createDir;
 import static jact.utils.FileSystemUtils.removeDirectory;
 import static junit.framework.TestCase.assertEquals;
 import static junit.framework.TestCase.assertTrue;
@@ -54,6 +66,7 @@ public class ProjectDependenciesTest {
             "org.checkerframework:checker-qual:3.41.0"
     );
 
+    public static ProjectDependencies projectDependencies;
     public static Map<String, ProjectDependency> dependencies;
 
     @AfterAll
@@ -71,7 +84,8 @@ public class ProjectDependenciesTest {
      */
     public static void initTestDependencies() {
         assertTrue(new File(testResourcesDir + "lockfile.json").exists());
-        dependencies = getAllProjectDependencies(testResourcesDir, false, false);
+        projectDependencies = new ProjectDependencies(REPORTPATH, false);
+        dependencies = projectDependencies.getAllProjectDependencies(testResourcesDir);
     }
 
     @Test
@@ -198,6 +212,25 @@ public class ProjectDependenciesTest {
         }
     }
 
+    @Test
+    /**
+     * Requirements: Nothing.
+     * Contract:
+     *      Pre-condition: A dependency whose version contains characters
+     *                     JaCoCo does not allow in file names.
+     *     Post-condition: The directory name has them replaced by '_',
+     *                     like the bundle directory written by JaCoCo.
+     */
+    public void normalizedDirNameTest() {
+        ProjectDependency dependency = new ProjectDependency();
+        dependency.setGroupId("org.example");
+        dependency.setArtifactId("build-info");
+        dependency.setVersion("1.0+build:7");
+        assertEquals("org.example.build.info-v1.0_build_7", depToDirName(dependency));
+        assertEquals("org.example.build.info-v1.0_build", depIdToDirName("org.example:build-info:1.0+build"));
+        assertEquals("com.google.guava.guava-v33.0.0-jre", depIdToDirName("com.google.guava:guava:33.0.0-jre"));
+    }
+
     @Test
     /**
      * Requirements: See `initTestDependencies()`.
@@ -211,11 +244,160 @@ public class ProjectDependenciesTest {
      *                     indirectUsageMap.
      */
     public void indirectReportPathsTest() {
-        assertEquals(4, getIndirectUsageMap().size());
-        assertTrue(getIndirectUsageMap().containsKey("com.google.guava:guava:33.0.0-jre"));
-        assertTrue(getIndirectUsageMap().containsKey("junit:junit:4.13.2"));
-        assertTrue(getIndirectUsageMap().containsKey("org.junit.jupiter:junit-jupiter-api:5.10.2"));
-        assertTrue(getIndirectUsageMap().containsKey("org.junit.platform:junit-platform-commons:1.10.2"));
+        assertEquals(4, projectDependencies.getIndirectUsageMap().size());
+        assertTrue(projectDependencies.getIndirectUsageMap().containsKey("com.google.guava:guava:33.0.0-jre"));
+        assertTrue(projectDependencies.getIndirectUsageMap().containsKey("junit:junit:4.13.2"));
+        assertTrue(projectDependencies.getIndirectUsageMap().containsKey("org.junit.jupiter:junit-jupiter-api:5.10.2"));
+        assertTrue(projectDependencies.getIndirectUsageMap().containsKey("org.junit.platform:junit-platform-commons:1.10.2"));
+    }
+
+    @Test
+    /**
+     * Requirements: Nothing.
+     * Contract:
+     *      Pre-condition: A lockfile with a deep chain of
+     *                     dependencies, where the chain also
+     *                     appears a second time.
+     *     Post-condition: All dependencies are read without
+     *                     exhausting the stack and each one is
+     *                     linked to its parent.
+     */
+    public void deepLockfileTest() throws IOException {
+        int depth = 20000;
+        StringBuilder chain = new StringBuilder();
+        for (int i = 0; i < depth; i++) {
+            chain.append("{\"id\": \"dep:dep").append(i).append(":1.0\", \"groupId\": \"dep\", ")
+                    .append("\"artifactId\": \"dep").append(i).append("\", \"selectedVersion\": \"1.0\", ")
+                    .append("\"scope\": \"compile\", \"children\": [");
+        }
+        for (int i = 0; i < depth; i++) {
+            chain.append("]}");
+        }
+        String lockfile = "{\"artifactId\": \"deep\", \"dependencies\": [" + chain + ", " + chain + "]}";
+        createDir(testDirectory + "deepLockfile");
+        Files.write(Paths.get(testDirectory + "deepLockfile/lockfile.json"), lockfile.getBytes(StandardCharsets.UTF_8));
+
+        ProjectDependencies deepDependencies = new ProjectDependencies(REPORTPATH, false);
+        Map<String, ProjectDependency> deepDeps = deepDependencies.getAllProjectDependencies(testDirectory + "deepLockfile/");
+        assertEquals(depth, deepDeps.size());
+        assertTrue(deepDeps.get("dep:dep0:1.0").rootDep);
+        ProjectDependency last = deepDeps.get("dep:dep" + (depth - 1) + ":1.0");
+        assertEquals(1, last.getParentDeps().size());
+        assertTrue(last.getParentDeps().containsKey("dep:dep" + (depth - 2) + ":1.0"));
+        assertEquals(depth - 1, deepDependencies.getIndirectUsageMap().size());
+    }
+
+    @Test
+    /**
+     * Requirements: Nothing.
+     * Contract:
+     *      Pre-condition: A lockfile where the children of the
+     *                     dependencies precede their id and scope,
+     *                     including a child of a skipped dependency.
+     *     Post-condition: The dependencies are read as if the
+     *                     keys were in order.
+     */
+    public void reorderedLockfileTest() throws IOException {
+        String lockfile = "{\"dependencies\": [" +
+                "{\"children\": [{\"children\": [" +
+                "{\"children\": [], \"id\": \"dep:grandchild:1.0\", \"scope\": \"compile\"}], " +
+                "\"id\": \"dep:child:1.0\", \"scope\": \"compile\"}], " +
+                "\"groupId\": \"dep\", \"artifactId\": \"root\", \"selectedVersion\": \"1.0\", " +
+                "\"id\": \"dep:root:1.0\", \"scope\": \"compile\"}, " +
+                "{\"children\": [{\"id\": \"dep:provided-child:1.0\", \"scope\": \"compile\"}], " +
+                "\"id\": \"dep:provided:1.0\", \"scope\": \"provided\"}]}";
+        createDir(testDirectory + "reorderedLockfile");
+        Files.write(Paths.get(testDirectory + "reorderedLockfile/lockfile.json"),
+                lockfile.getBytes(StandardCharsets.UTF_8));
+
+        ProjectDependencies reorderedDependencies = new ProjectDependencies(REPORTPATH, false);
+        Map<String, ProjectDependency> reorderedDeps =
+                reorderedDependencies.getAllProjectDependencies(testDirectory + "reorderedLockfile/");
+        assertEquals(3, reorderedDeps.size());
+        ProjectDependency root = reorderedDeps.get("dep:root:1.0");
+        assertTrue(root.rootDep);
+        assertEquals("root", root.getArtifactId());
+        assertTrue(root.getChildDeps().containsKey("dep:child:1.0"));
+        ProjectDependency child = reorderedDeps.get("dep:child:1.0");
+        assertTrue(child.getParentDeps().containsKey("dep:root:1.0"));
+        assertTrue(child.getChildDeps().containsKey("dep:grandchild:1.0"));
+        assertTrue(reorderedDeps.get("dep:grandchild:1.0").getParentDeps().containsKey("dep:child:1.0"));
+        assertEquals(2, reorderedDependencies.getIndirectUsageMap().size());
+    }
+
+    @Test
+    /**
+     * Requirements: Nothing.
+     * Contract:
+     *      Pre-condition: A lockfile that is not valid JSON.
+     *     Post-condition: Reading the lockfile fails instead of
+     *                     returning the dependencies read so far.
+     */
+    public void invalidLockfileTest() throws IOException {
+        createDir(testDirectory + "invalidLockfile");
+        Files.write(Paths.get(testDirectory + "invalidLockfile/lockfile.json"),
+                "{\"dependencies\": [{\"id\": ".getBytes(StandardCharsets.UTF_8));
+
+        ProjectDependencies invalidDependencies = new ProjectDependencies(REPORTPATH, false);
+        Assertions.assertThrows(IllegalStateException.class,
+                () -> invalidDependencies.getAllProjectDependencies(testDirectory + "invalidLockfile/"));
+    }
+
+    @Test
+    /**
+     * Requirements: Nothing.
+     * Contract:
+     *      Pre-condition: A verbose Maven dependency graph with a
+     *                     repeated dependency, a dependency that
+     *                     lost a version conflict, a test-scope
+     *                     dependency and a snapshot resolved to a
+     *                     timestamped version.
+     *     Post-condition: The repeated dependency is linked to both
+     *                     parents, the conflict loser and the skipped
+     *                     dependency are left out and the snapshot is
+     *                     kept with its base version.
+     */
+    public void mavenDependencyGraphTest() {
+        Artifact guava = artifact("com.google.guava", "guava", "33.0.0-jre", "compile");
+        Artifact jsr305 = artifact("com.google.code.findbugs", "jsr305", "3.0.2", "compile");
+        Artifact reflections = artifact("org.reflections", "reflections", "0.10.2", "compile");
+        Artifact oldJsr305 = artifact("com.google.code.findbugs", "jsr305", "2.0.1", "compile");
+        Artifact junit = artifact("junit", "junit", "4.13.2", "test");
+        Artifact snapshot = artifact("org.example", "snapshot", "1.0-SNAPSHOT", "compile");
+        Artifact resolvedSnapshot = artifact("org.example", "snapshot", "1.0-20240101.120000-1", "compile");
+
+        DefaultDependencyNode root = new DefaultDependencyNode(artifact("jact.test", "project", "1.0", null));
+        DefaultDependencyNode guavaNode = node(root, guava, node(null, jsr305));
+        DefaultDependencyNode reflectionsNode = node(root, reflections, node(null, jsr305), node(null, oldJsr305));
+        DefaultDependencyNode snapshotNode = node(root, snapshot, node(null, jsr305));
+        root.setChildren(Arrays.asList(guavaNode, reflectionsNode, node(root, junit), snapshotNode));
+
+        Set<Artifact> resolved = new HashSet<>(Arrays.asList(guava, jsr305, reflections, junit, resolvedSnapshot));
+        ProjectDependencies graphDependencies = new ProjectDependencies(REPORTPATH, true);
+        Map<String, ProjectDependency> graphDeps = graphDependencies.getAllProjectDependencies(root, resolved);
+
+        assertEquals(4, graphDeps.size());
+        assertTrue(graphDeps.get("com.google.guava:guava:33.0.0-jre").rootDep);
+        ProjectDependency jsr305Dep = graphDeps.get("com.google.code.findbugs:jsr305:3.0.2");
+        assertEquals(3, jsr305Dep.getParentDeps().size());
+        ProjectDependency snapshotDep = graphDeps.get("org.example:snapshot:1.0-SNAPSHOT");
+        assertTrue(snapshotDep.rootDep);
+        assertEquals("1.0-SNAPSHOT", snapshotDep.getVersion());
+        assertTrue(snapshotDep.getChildDeps().containsKey("com.google.code.findbugs:jsr305:3.0.2"));
+        assertTrue(jsr305Dep.getParentDeps().containsKey("org.reflections:reflections:0.10.2"));
+        assertEquals(1, graphDeps.get("org.reflections:reflections:0.10.2").getChildDeps().size());
+        assertEquals(REPORTPATH + "dependencies/" + depToDirName(jsr305Dep) + "/", jsr305Dep.getReportPath());
+        assertEquals(3, graphDependencies.getIndirectUsageMap().size());
+    }
+
+    private static Artifact artifact(String groupId, String artifactId, String version, String scope) {
+        return new DefaultArtifact(groupId, artifactId, version, scope, "jar", null, new DefaultArtifactHandler("jar"));
+    }
+
+    private static DefaultDependencyNode node(DependencyNode parent, Artifact artifact, DependencyNode... children) {
+        DefaultDependencyNode node = new DefaultDependencyNode(parent, artifact, null, null, null);
+        node.setChildren(Arrays.asList(children));
+        return node;
     }
 
 }
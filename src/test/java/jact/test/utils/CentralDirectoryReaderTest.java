@@ -0,0 +1,142 @@
+package jact.test.utils;
+
+import jact.utils.CentralDirectoryReader;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
+
+import static jact.utils.FileSystemUtils.removeDirectory;
+import static junit.framework.TestCase.assertEquals;
+import static junit.framework.TestCase.assertTrue;
+
+public class CentralDirectoryReaderTest {
+    static String testDirectory = "./src/test/java/jact/test/testingDir/";
+
+    @AfterAll
+    public static void cleanUpTestDirs() {
+        removeDirectory(new File(testDirectory));
+        Assertions.assertFalse(new File(testDirectory).exists());
+    }
+
+    private static File writeJar(String name, String comment, List<String> entries) throws IOException {
+        File jar = new File(testDirectory, name);
+        jar.getParentFile().mkdirs();
+        try (ZipOutputStream out = new ZipOutputStream(new BufferedOutputStream(new FileOutputStream(jar)))) {
+            for (String entry : entries) {
+                out.putNextEntry(new ZipEntry(entry));
+                out.closeEntry();
+            }
+            if (comment != null) {
+                out.setComment(comment);
+            }
+        }
+        return jar;
+    }
+
+    /**
+     * The class names as read through ZipFile.
+     */
+    private static List<String> zipFileClassNames(File jar) throws IOException {
+        List<String> classes = new ArrayList<>();
+        try (ZipFile zipFile = new ZipFile(jar)) {
+            Enumeration<? extends ZipEntry> entries = zipFile.entries();
+            while (entries.hasMoreElements()) {
+                String name = entries.nextElement().getName();
+                if (name.endsWith(".class") && !name.startsWith("META-INF/") && name.lastIndexOf('/') > 0) {
+                    classes.add(name.substring(0, name.length() - ".class".length()));
+                }
+            }
+        }
+        return classes;
+    }
+
+    @Test
+    /**
+     * Requirements: Nothing.
+     * Contract:
+     *     Pre-condition:  A jar with classes, directories, resources,
+     *                     multi-release classes, an unnamed package
+     *                     class, non-ASCII names and an archive comment.
+     *     Post-condition: The classes of named packages are listed in
+     *                     entry order, the same as through ZipFile.
+     */
+    public void readClassNamesTest() throws IOException {
+        File jar = writeJar("classes.jar", "an archive comment",
+                Arrays.asList("META-INF/MANIFEST.MF", "org/", "org/example/", "org/example/Foo.class",
+                        "org/example/Foo$Inner.class", "org/example/config.properties", "Unnamed.class",
+                        "META-INF/versions/9/org/example/Foo.class", "org/example/\u00e9t\u00e9/Caf\u00e9.class",
+                        "org/example/.class"));
+        List<String> classes = new ArrayList<>();
+        CentralDirectoryReader.readClassNames(jar, classes);
+        assertEquals(Arrays.asList("org/example/Foo", "org/example/Foo$Inner",
+                "org/example/\u00e9t\u00e9/Caf\u00e9", "org/example/"), classes);
+        assertEquals(zipFileClassNames(jar), classes);
+    }
+
+    @Test
+    /**
+     * Requirements: Nothing.
+     * Contract:
+     *     Pre-condition:  A jar with more entries than the classic
+     *                     ZIP format supports, stored as ZIP64.
+     *     Post-condition: All classes are listed.
+     */
+    public void readZip64ClassNamesTest() throws IOException {
+        List<String> entries = new ArrayList<>();
+        for (int i = 0; i < 70000; i++) {
+            entries.add("org/example/p" + (i % 100) + "/C" + i + ".class");
+        }
+        File jar = writeJar("zip64.jar", null, entries);
+        List<String> classes = new ArrayList<>();
+        CentralDirectoryReader.readClassNames(jar, classes);
+        assertEquals(70000, classes.size());
+        assertEquals(zipFileClassNames(jar), classes);
+    }
+
+    @Test
+    /**
+     * Requirements: Nothing.
+     * Contract:
+     *     Pre-condition:  Files that are no (readable) ZIP files.
+     *     Post-condition: An IOException is thrown, so that the
+     *                     caller can fall back to ZipFile.
+     */
+    public void invalidZipTest() throws IOException {
+        File text = new File(testDirectory, "text.jar");
+        text.getParentFile().mkdirs();
+        Files.write(text.toPath(), "not a zip file, but longer than the end record".getBytes(StandardCharsets.UTF_8));
+        assertTrue(throwsIOException(text));
+
+        // Data prepended to the archive moves the central directory
+        File jar = writeJar("prefixed-source.jar", null, Arrays.asList("org/example/Foo.class"));
+        File prefixed = new File(testDirectory, "prefixed.jar");
+        byte[] jarBytes = Files.readAllBytes(jar.toPath());
+        byte[] prefixedBytes = new byte[jarBytes.length + 100];
+        System.arraycopy(jarBytes, 0, prefixedBytes, 100, jarBytes.length);
+        Files.write(prefixed.toPath(), prefixedBytes);
+        assertTrue(throwsIOException(prefixed));
+    }
+
+    private static boolean throwsIOException(File file) {
+        try {
+            CentralDirectoryReader.readClassNames(file, new ArrayList<>());
+            return false;
+        } catch (IOException e) {
+            return true;
+        }
+    }
+}